@@ -0,0 +1,35 @@
+package com.example.commonserviceofficial.autoconfigure;
+
+import com.example.commonserviceofficial.sequence.client.SequenceClient;
+import com.example.commonserviceofficial.sequence.client.SequenceClientProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * {@link SequenceClient} cho service gọi sequence API từ xa, bật bằng sequence.client.enabled=true
+ */
+@Configuration
+@ConditionalOnClass(WebClient.class)
+@ConditionalOnProperty(prefix = "sequence.client", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SequenceClientProperties.class)
+public class SequenceClientAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    SequenceClient sequenceClient(SequenceClientProperties properties,
+                                  ObjectProvider<WebClient.Builder> webClientBuilder) {
+        WebClient.Builder builder = webClientBuilder.getIfAvailable(WebClient::builder)
+                .baseUrl(properties.getBaseUrl());
+        if (properties.getAuthorization() != null && !properties.getAuthorization().isBlank()) {
+            builder.defaultHeader(HttpHeaders.AUTHORIZATION, properties.getAuthorization());
+        }
+        return new SequenceClient(builder.build(), properties);
+    }
+}
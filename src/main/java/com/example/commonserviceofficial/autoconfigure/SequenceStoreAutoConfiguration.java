@@ -0,0 +1,89 @@
+package com.example.commonserviceofficial.autoconfigure;
+
+import com.example.commonserviceofficial.sequence.config.SequenceProperties;
+import com.example.commonserviceofficial.sequence.config.ZooKeeperConfig;
+import com.example.commonserviceofficial.sequence.store.FileSequenceStore;
+import com.example.commonserviceofficial.sequence.store.RedisSequenceStore;
+import com.example.commonserviceofficial.sequence.store.SequenceStore;
+import com.example.commonserviceofficial.sequence.store.ZooKeeperSequenceStore;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chọn {@link SequenceStore} theo sequence.store.type (mặc định zookeeper).
+ * Ứng dụng có thể tự khai báo bean SequenceStore để thay thế.
+ */
+@Slf4j
+@Configuration
+public class SequenceStoreAutoConfiguration {
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "sequence.store", name = "type", havingValue = "zookeeper", matchIfMissing = true)
+    static class ZooKeeperStoreConfiguration {
+
+        @Bean(destroyMethod = "close")
+        @ConditionalOnMissingBean
+        CuratorFramework sequenceCuratorFramework(ZooKeeperConfig zooKeeperConfig) throws InterruptedException {
+            // Không chờ vô hạn: hết connection-timeout thì khởi động ở chế độ degraded
+            ZooKeeperConfig.RetryPolicy retry = zooKeeperConfig.getRetryPolicy();
+            CuratorFramework curatorFramework = CuratorFrameworkFactory.builder()
+                    .connectString(zooKeeperConfig.getConnectionString())
+                    .sessionTimeoutMs(zooKeeperConfig.getSessionTimeout())
+                    .connectionTimeoutMs(zooKeeperConfig.getConnectionTimeout())
+                    .retryPolicy(new ExponentialBackoffRetry(
+                            retry.getBaseSleepTimeMs(), retry.getMaxRetries(), retry.getMaxSleepMs()))
+                    .build();
+            curatorFramework.start();
+            if (!curatorFramework.blockUntilConnected(zooKeeperConfig.getConnectionTimeout(), TimeUnit.MILLISECONDS)) {
+                log.warn("ZooKeeper {} not reachable after {} ms, continuing without connection",
+                        zooKeeperConfig.getConnectionString(), zooKeeperConfig.getConnectionTimeout());
+            }
+            return curatorFramework;
+        }
+
+        @Bean(initMethod = "start")
+        @ConditionalOnMissingBean(SequenceStore.class)
+        ZooKeeperSequenceStore zooKeeperSequenceStore(CuratorFramework curatorFramework,
+                                                      SequenceProperties sequenceProperties) {
+            return new ZooKeeperSequenceStore(curatorFramework,
+                    sequenceProperties.getZookeeper().getBasePath(),
+                    sequenceProperties.getZookeeper().getBuckets(),
+                    sequenceProperties.getSegment().getMaxLeaseRetries());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(StringRedisTemplate.class)
+    @ConditionalOnProperty(prefix = "sequence.store", name = "type", havingValue = "redis")
+    static class RedisStoreConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(SequenceStore.class)
+        RedisSequenceStore redisSequenceStore(StringRedisTemplate redisTemplate,
+                                              SequenceProperties sequenceProperties) {
+            return new RedisSequenceStore(redisTemplate, sequenceProperties.getStore().getRedisKeyPrefix());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(prefix = "sequence.store", name = "type", havingValue = "file")
+    static class FileStoreConfiguration {
+
+        @Bean(initMethod = "start", destroyMethod = "close")
+        @ConditionalOnMissingBean(SequenceStore.class)
+        FileSequenceStore fileSequenceStore(SequenceProperties sequenceProperties) {
+            return new FileSequenceStore(Paths.get(sequenceProperties.getStore().getFilePath()));
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.commonserviceofficial.sequence;
+
+/**
+ * Request không hợp lệ (key rỗng, sai mode, số lượng vượt giới hạn...), controller trả về 400.
+ * Các IllegalArgumentException khác (ví dụ NumberFormatException khi giá trị trên store bị hỏng)
+ * là lỗi phía server.
+ */
+public class SequenceValidationException extends IllegalArgumentException {
+
+    public SequenceValidationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.commonserviceofficial.sequence.client;
+
+import com.example.commonserviceofficial.sequence.dto.SequenceBatchResponse;
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import com.example.commonserviceofficial.sequence.segment.Segment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Client cấp sequence trong process của service gọi: lease từng block số (block-size giá trị)
+ * qua POST /api/sequences/generate-batch rồi cấp local bằng {@link Segment}, không có network
+ * call trên hot path. Khi block đang dùng còn dưới prefetch-threshold thì block tiếp theo được
+ * lease ở background; chỉ chờ network khi block hết mà lần lease trước chưa xong.
+ *
+ * Số chưa cấp khi process dừng bị bỏ (khoảng trống), giống segment ở server.
+ */
+@Slf4j
+public class SequenceClient {
+
+    private final SequenceClientProperties properties;
+
+    // Lease count giá trị của key, trả về các dải liên tiếp
+    private final BiFunction<String, Long, CompletableFuture<List<IdRange>>> leaser;
+
+    private final ConcurrentHashMap<String, Blocks> keys = new ConcurrentHashMap<>();
+
+    public SequenceClient(WebClient webClient, SequenceClientProperties properties) {
+        this(properties, (keyName, count) -> leaseOverHttp(webClient, keyName, count, properties.getTimeoutMs()));
+    }
+
+    SequenceClient(SequenceClientProperties properties,
+                   BiFunction<String, Long, CompletableFuture<List<IdRange>>> leaser) {
+        this.properties = properties;
+        this.leaser = leaser;
+    }
+
+    /**
+     * Số tiếp theo của key, cấp từ block đã lease
+     *
+     * @throws IllegalStateException nếu phải lease mà server lỗi hoặc quá timeout-ms
+     */
+    public long nextId(String keyName) {
+        if (keyName == null || keyName.trim().isEmpty()) {
+            throw new IllegalArgumentException("KeyName cannot be null or empty");
+        }
+        Blocks blocks = keys.computeIfAbsent(keyName, Blocks::new);
+
+        while (true) {
+            Segment segment = blocks.current.get();
+            long value = segment != null ? segment.next() : Segment.EXHAUSTED;
+            if (value != Segment.EXHAUSTED) {
+                if (blocks.pending.get() == null && blocks.ready.isEmpty()
+                        && segment.remaining() <= properties.getPrefetchThreshold() * properties.blockSizeOf(keyName)) {
+                    prefetch(blocks);
+                }
+                return value;
+            }
+
+            Segment next = blocks.ready.pollFirst();
+            if (next != null) {
+                if (!blocks.current.compareAndSet(segment, next)) {
+                    // Thread khác vừa chuyển block, giữ lại block này cho lần sau
+                    blocks.ready.offerFirst(next);
+                }
+                continue;
+            }
+
+            await(keyName, prefetch(blocks));
+        }
+    }
+
+    /**
+     * Lease trước block đầu tiên của key (ví dụ khi khởi động) để lần nextId đầu không phải chờ
+     */
+    public CompletableFuture<Void> warmUp(String keyName) {
+        return prefetch(keys.computeIfAbsent(keyName, Blocks::new));
+    }
+
+    /**
+     * Lease block tiếp theo nếu chưa có lần lease nào đang chạy
+     */
+    private CompletableFuture<Void> prefetch(Blocks blocks) {
+        CompletableFuture<Void> placeholder = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<Void> existing = blocks.pending.get();
+            if (existing != null) {
+                return existing;
+            }
+            if (blocks.pending.compareAndSet(null, placeholder)) {
+                break;
+            }
+        }
+
+        long count = properties.blockSizeOf(blocks.keyName);
+        CompletableFuture<List<IdRange>> lease;
+        try {
+            lease = leaser.apply(blocks.keyName, count);
+        } catch (RuntimeException e) {
+            lease = CompletableFuture.failedFuture(e);
+        }
+        lease.whenComplete((ranges, error) -> {
+            if (error == null) {
+                ranges.forEach(range -> blocks.ready.offerLast(new Segment(range.start(), range.end())));
+                log.debug("Leased {} values for key '{}': {}", count, blocks.keyName, ranges);
+            } else {
+                log.warn("Failed to lease {} values for key '{}': {}", count, blocks.keyName, error.getMessage());
+            }
+            // Cho phép lease lần sau trước khi báo cho thread đang chờ
+            blocks.pending.compareAndSet(placeholder, null);
+            if (error == null) {
+                placeholder.complete(null);
+            } else {
+                placeholder.completeExceptionally(error);
+            }
+        });
+        return placeholder;
+    }
+
+    private void await(String keyName, CompletableFuture<Void> lease) {
+        try {
+            lease.get(properties.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while leasing sequence for key: " + keyName, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Cannot lease sequence for key: " + keyName, e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Leasing sequence for key '" + keyName + "' timed out after "
+                    + properties.getTimeoutMs() + " ms");
+        }
+    }
+
+    private static CompletableFuture<List<IdRange>> leaseOverHttp(WebClient webClient, String keyName, long count,
+                                                                  long timeoutMs) {
+        return webClient.post()
+                .uri("/api/sequences/generate-batch")
+                .bodyValue(Map.of("keyName", keyName, "count", count))
+                .exchangeToMono(response -> response.bodyToMono(SequenceBatchResponse.class)
+                        .map(body -> {
+                            if (!response.statusCode().is2xxSuccessful() || body.getRanges() == null) {
+                                throw new IllegalStateException("Sequence server returned "
+                                        + response.statusCode().value() + ": " + body.getMessage());
+                            }
+                            return body.getRanges();
+                        })
+                        .switchIfEmpty(Mono.error(() -> new IllegalStateException("Sequence server returned "
+                                + response.statusCode().value() + " without body"))))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .toFuture();
+    }
+
+    /**
+     * Block đang cấp, các block đã lease chờ dùng và lần lease đang chạy của một key
+     */
+    private static final class Blocks {
+
+        private final String keyName;
+        private final AtomicReference<Segment> current = new AtomicReference<>();
+        private final ConcurrentLinkedDeque<Segment> ready = new ConcurrentLinkedDeque<>();
+        private final AtomicReference<CompletableFuture<Void>> pending = new AtomicReference<>();
+
+        private Blocks(String keyName) {
+            this.keyName = keyName;
+        }
+    }
+}
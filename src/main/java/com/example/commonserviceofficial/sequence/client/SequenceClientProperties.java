@@ -0,0 +1,59 @@
+package com.example.commonserviceofficial.sequence.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình {@link SequenceClient} cho service gọi sequence API từ xa
+ */
+@Data
+@ConfigurationProperties(prefix = "sequence.client")
+public class SequenceClientProperties {
+
+    /**
+     * Bật SequenceClient (auto-configuration)
+     * Default: false
+     */
+    private boolean enabled = false;
+
+    /**
+     * Địa chỉ service cấp sequence
+     * Default: http://localhost:8081
+     */
+    private String baseUrl = "http://localhost:8081";
+
+    /**
+     * Giá trị header Authorization gửi kèm (ví dụ "Bearer ..."), để trống nếu không cần
+     */
+    private String authorization;
+
+    /**
+     * Số giá trị lease mỗi lần (tối đa sequence.max-batch-count của server)
+     * Default: 10000
+     */
+    private long blockSize = 10_000;
+
+    /**
+     * Số giá trị lease mỗi lần cho từng key (ghi đè block-size)
+     */
+    private Map<String, Long> blockSizes = new HashMap<>();
+
+    /**
+     * Còn dưới tỉ lệ này của block-size thì lease trước block tiếp theo ở background
+     * Default: 0.2
+     */
+    private double prefetchThreshold = 0.2;
+
+    /**
+     * Thời gian tối đa chờ lease khi đã hết số local (ms)
+     * Default: 5000
+     */
+    private long timeoutMs = 5000;
+
+    public long blockSizeOf(String keyName) {
+        return blockSizes.getOrDefault(keyName, blockSize);
+    }
+}
@@ -0,0 +1,583 @@
+package com.example.commonserviceofficial.sequence.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configuration properties cho Sequence Generator
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "sequence")
+public class SequenceProperties {
+
+    /**
+     * Ngăn cách key gốc và kỳ trong key của số định dạng có rollover (ví dụ INVOICE@202610)
+     */
+    public static final char PERIOD_SEPARATOR = '@';
+
+    /**
+     * Chế độ cấp phát sequence. Mặc định giữ counter local như trước, key cần duy nhất trên nhiều
+     * instance chuyển sang SEGMENT qua sequence.mode hoặc sequence.keys.{key}.mode
+     * Default: CACHED
+     */
+    private Mode mode = Mode.CACHED;
+
+    /**
+     * Cấu hình segment leasing
+     */
+    private Segment segment = new Segment();
+
+    /**
+     * Số lượng tối đa cho một lần generate batch
+     * Default: 100000
+     */
+    private long maxBatchCount = 100_000;
+
+    /**
+     * Số key tối đa cho một lần generate nhiều key
+     * Default: 20
+     */
+    private int maxMultiKeys = 20;
+
+    /**
+     * Cấu hình GET /api/sequences/{keyName}/stream
+     */
+    private Stream stream = new Stream();
+
+    /**
+     * Cấu hình export / import trạng thái sequence
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * Cấu hình Micrometer metrics của sequence
+     */
+    private Metrics metrics = new Metrics();
+
+    /**
+     * Cấu hình nơi lưu giá trị sequence
+     */
+    private Store store = new Store();
+
+    /**
+     * Cấu hình ZooKeeper cho sequence
+     */
+    private Zookeeper zookeeper = new Zookeeper();
+
+    /**
+     * Cấu hình Snowflake ID generator
+     */
+    private Snowflake snowflake = new Snowflake();
+
+    /**
+     * Cấu hình hủy cache trên toàn cluster khi reset / delete
+     */
+    private Invalidation invalidation = new Invalidation();
+
+    /**
+     * Cấu hình bản sao in-memory của các sequence key
+     */
+    private Mirror mirror = new Mirror();
+
+    /**
+     * Cấu hình chế độ STRICT
+     */
+    private Strict strict = new Strict();
+
+    /**
+     * Cấu hình chế độ STRIPED
+     */
+    private Striped striped = new Striped();
+
+    /**
+     * Cấu hình cache trạng thái local (counter, segment) của các key
+     */
+    private KeyCache cache = new KeyCache();
+
+    /**
+     * Cấu hình chuẩn bị trước các key khi khởi động
+     */
+    private Warmup warmup = new Warmup();
+
+    /**
+     * Cấu hình journal local của các đoạn số đang giữ
+     */
+    private Journal journal = new Journal();
+
+    /**
+     * Cấu hình riêng cho từng keyname (ghi đè cấu hình chung)
+     */
+    private Map<String, KeyConfig> keys = new HashMap<>();
+
+    /**
+     * Chế độ cấp phát thực tế của keyname
+     */
+    public Mode modeOf(String keyName) {
+        KeyConfig keyConfig = keyConfigOf(keyName);
+        return keyConfig != null && keyConfig.getMode() != null ? keyConfig.getMode() : mode;
+    }
+
+    /**
+     * Cấu hình riêng của keyname; key theo kỳ ({key}@{kỳ}) dùng cấu hình của key gốc
+     */
+    public KeyConfig keyConfigOf(String keyName) {
+        KeyConfig keyConfig = keys.get(keyName);
+        int separator = keyName.indexOf(PERIOD_SEPARATOR);
+        if (keyConfig == null && separator > 0) {
+            keyConfig = keys.get(keyName.substring(0, separator));
+        }
+        return keyConfig;
+    }
+
+    /**
+     * Số stripe của key STRIPED
+     */
+    public int stripesOf(String keyName) {
+        KeyConfig keyConfig = keyConfigOf(keyName);
+        return keyConfig != null && keyConfig.getStripes() != null ? keyConfig.getStripes() : striped.getStripes();
+    }
+
+    /**
+     * Có keyname nào dùng chế độ này không
+     */
+    public boolean isModeUsed(Mode candidate) {
+        return mode == candidate || keys.values().stream().anyMatch(k -> k.getMode() == candidate);
+    }
+
+    public enum Mode {
+        /**
+         * Tăng AtomicLong local, đồng bộ ZooKeeper định kỳ (chế độ cũ).
+         * Không đảm bảo duy nhất khi chạy nhiều instance hoặc restart.
+         */
+        CACHED,
+
+        /**
+         * Mỗi node lease một đoạn [start..end] bằng compare-and-set trên znode,
+         * sau đó cấp phát từ memory. Duy nhất trên toàn cluster.
+         */
+        SEGMENT,
+
+        /**
+         * ID 64-bit theo thời gian (timestamp + worker + sequence), sinh hoàn toàn in-memory.
+         * Duy nhất và tăng dần tương đối, không liên tục.
+         */
+        SNOWFLAKE,
+
+        /**
+         * Liên tục, không khoảng trống (ví dụ số hóa đơn): reserve rồi confirm / release,
+         * số release được cấp lại. Mỗi nhóm thao tác đồng thời là một lần ghi ZooKeeper.
+         */
+        STRICT,
+
+        /**
+         * Key được chia thành nhiều counter con {key}#{i}, mỗi node lease trên một counter con
+         * và cấp số thuộc lớp đồng dư của counter đó. Duy nhất nhưng không tăng dần trên toàn
+         * cluster (ví dụ correlation ID), tốc độ cấp tăng theo số node.
+         */
+        STRIPED
+    }
+
+    public enum StoreType {
+        /**
+         * Znode cho từng key, lease bằng compare-and-set theo version
+         */
+        ZOOKEEPER,
+
+        /**
+         * String key trên Redis, lease bằng INCRBY
+         */
+        REDIS,
+
+        /**
+         * File properties local, chỉ dùng cho một instance
+         */
+        FILE
+    }
+
+    @Data
+    public static class KeyConfig {
+        /**
+         * Chế độ cấp phát cho key, null = dùng sequence.mode
+         */
+        private Mode mode;
+
+        /**
+         * Mẫu số định dạng, ví dụ INV-{yyyy}-{MM}-{seq:6}
+         * Token: {yyyy} {yy} {MM} {dd} {seq} {seq:độ dài tối thiểu}
+         * Key có format phải dùng mode segment hoặc strict (cached: lỗi khi khởi động)
+         */
+        private String format;
+
+        /**
+         * Bắt đầu lại từ 1 theo kỳ (mỗi kỳ là một key riêng {key}@{kỳ} trên store)
+         * Default: NONE
+         */
+        private Rollover rollover = Rollover.NONE;
+
+        /**
+         * Múi giờ để tính ngày / kỳ, null = múi giờ của hệ thống
+         */
+        private String zone;
+
+        /**
+         * Mode STRIPED: số counter con của key, null = sequence.striped.stripes
+         */
+        private Integer stripes;
+    }
+
+    public enum Rollover {
+        NONE,
+        DAILY,
+        MONTHLY,
+        YEARLY
+    }
+
+    @Data
+    public static class Segment {
+        /**
+         * Số giá trị lease trong lần đầu tiên (hoặc mọi lần nếu tắt adaptive)
+         * Default: 1000
+         */
+        private long step = 1000;
+
+        /**
+         * Tự điều chỉnh kích thước segment theo tốc độ cấp phát của từng key
+         * Default: true
+         */
+        private boolean adaptive = true;
+
+        /**
+         * Kích thước segment nhỏ nhất khi adaptive
+         * Default: 10
+         */
+        private long minStep = 10;
+
+        /**
+         * Kích thước segment lớn nhất khi adaptive
+         * Default: 1000000
+         */
+        private long maxStep = 1_000_000;
+
+        /**
+         * Thời gian mong muốn để một segment được dùng hết, tính bằng milliseconds
+         * Default: 60000 (60 seconds)
+         */
+        private long targetDurationMs = 60000;
+
+        /**
+         * Hệ số EWMA cho tốc độ cấp phát (0..1], càng lớn càng phản ứng nhanh
+         * Default: 0.5
+         */
+        private double rateSmoothing = 0.5;
+
+        /**
+         * Số lần retry compare-and-set khi có node khác lease cùng lúc
+         * Default: 10
+         */
+        private int maxLeaseRetries = 10;
+
+        /**
+         * Tỉ lệ đã cấp của segment đang dùng mà từ đó lease trước segment dự phòng
+         * Default: 0.2 (đã cấp 20%)
+         */
+        private double prefetchThreshold = 0.2;
+
+        /**
+         * Số thread lease segment dự phòng ở background
+         * Default: 2
+         */
+        private int prefetchThreads = 2;
+
+        /**
+         * Khi node dừng: trả phần chưa cấp của các segment cho store (đoạn cuối) hoặc đưa vào
+         * free list của key, và ghi counter mode CACHED lên store
+         * Default: true
+         */
+        private boolean returnOnShutdown = true;
+
+        /**
+         * Free list của key trống thì sau bao lâu mới kiểm tra lại khi lease, tính bằng milliseconds
+         * Default: 60000
+         */
+        private long freeListRecheckMs = 60_000;
+    }
+
+    @Data
+    public static class Store {
+        /**
+         * Loại store (invalidation, mirror, snowflake chỉ hoạt động với ZOOKEEPER)
+         * Default: ZOOKEEPER
+         */
+        private StoreType type = StoreType.ZOOKEEPER;
+
+        /**
+         * Tiền tố của key trên Redis
+         * Default: sequence:
+         */
+        private String redisKeyPrefix = "sequence:";
+
+        /**
+         * Đường dẫn file của store FILE
+         * Default: data/sequences.properties
+         */
+        private String filePath = "data/sequences.properties";
+    }
+
+    @Data
+    public static class Zookeeper {
+        /**
+         * Base path cho các sequence key
+         * Default: /sequences
+         */
+        private String basePath = "/sequences";
+
+        /**
+         * Mode CACHED: sync với ZooKeeper mỗi N lần generate
+         * Default: 10
+         */
+        private int syncInterval = 10;
+
+        /**
+         * Mode CACHED: sync khi chênh lệch với giá trị trên ZooKeeper >= N
+         * Default: 50
+         */
+        private int syncThreshold = 50;
+
+        /**
+         * Mode CACHED: số thread đọc counter lần đầu / ghi counter lên store cho request không block
+         * (generateNextAsync), riêng với thread prefetch segment
+         * Default: 4
+         */
+        private int syncThreads = 4;
+
+        /**
+         * Số bucket của layout HASHED ({base-path}/_buckets/{bucket}/{key}), 0 = layout FLAT.
+         * Key FLAT cũ được migrate dần khi truy cập; đổi số bucket khi đã có dữ liệu
+         * phải dừng mọi node và chạy ZooKeeperLayoutMigration
+         * Default: 0
+         */
+        private int buckets = 0;
+    }
+
+    @Data
+    public static class Invalidation {
+        /**
+         * Reset / delete tăng epoch của key, mọi node watch epoch và bỏ counter / segment cũ
+         * Default: true
+         */
+        private boolean enabled = true;
+
+        /**
+         * Node cha (dưới base-path) chứa epoch của từng key
+         * Default: _epochs
+         */
+        private String epochPath = "_epochs";
+    }
+
+    @Data
+    public static class Mirror {
+        /**
+         * Giữ bản sao toàn bộ key dưới base path bằng CuratorCache (watch),
+         * listing và getCurrentValue được phục vụ từ memory
+         * Default: false
+         */
+        private boolean enabled = false;
+    }
+
+    @Data
+    public static class Strict {
+        /**
+         * Node cha (dưới base-path) chứa trạng thái của các key STRICT
+         * Default: _strict
+         */
+        private String path = "_strict";
+
+        /**
+         * Số đã reserve mà không confirm / release trong thời gian này được cấp lại
+         * Default: 300000 (5 phút)
+         */
+        private long reservationTimeoutMs = 300_000;
+
+        /**
+         * Số reserve chưa confirm tối đa của một key
+         * Default: 10000
+         */
+        private int maxPending = 10_000;
+
+        /**
+         * Retry khi có node khác ghi cùng lúc
+         * Default: 20
+         */
+        private int maxCommitRetries = 20;
+
+        /**
+         * Số thread ghi trạng thái STRICT lên ZooKeeper
+         * Default: 2
+         */
+        private int commitThreads = 2;
+    }
+
+    @Data
+    public static class KeyCache {
+        /**
+         * Số key tối đa giữ counter / segment trong memory, vượt quá thì loại key ít dùng nhất
+         * Default: 100000
+         */
+        private long maximumKeys = 100_000;
+
+        /**
+         * Key không được dùng trong thời gian này bị loại khỏi memory, tính bằng milliseconds
+         * Default: 1800000 (30 phút)
+         */
+        private long idleTimeoutMs = 1_800_000;
+
+        /**
+         * Khi loại key: trả lại phần chưa cấp của segment cho store nếu chưa node nào lease
+         * sau đó (không thì phần đó thành khoảng trống)
+         * Default: true
+         */
+        private boolean returnUnused = true;
+    }
+
+    @Data
+    public static class Metrics {
+        /**
+         * Ghi metrics của sequence vào MeterRegistry (nếu có)
+         * Default: true
+         */
+        private boolean enabled = true;
+
+        /**
+         * Số key tối đa có tag riêng trong sequence.issued, các key sau gộp vào tag key=_other
+         * (giới hạn số time series khi key theo từng khách hàng / từng kỳ)
+         * Default: 100
+         */
+        private int maxKeyTags = 100;
+    }
+
+    @Data
+    public static class Stream {
+
+        /**
+         * Số giá trị lease mỗi lần khi client stream đã nhận hết dải trước
+         * Default: 1000
+         */
+        private long chunkSize = 1000;
+    }
+
+    @Data
+    public static class Snapshot {
+
+        /**
+         * Số key mỗi transaction khi import (giới hạn kích thước multi-op của ZooKeeper)
+         * Default: 500
+         */
+        private int importBatchSize = 500;
+    }
+
+    @Data
+    public static class Warmup {
+        /**
+         * Các key được chuẩn bị (lease segment / đọc counter) khi khởi động, trước khi báo ready
+         */
+        private List<String> keys = new ArrayList<>();
+
+        /**
+         * Chuẩn bị thêm N key dùng nhiều nhất của lần chạy trước (ghi vào hot-keys-file khi dừng),
+         * 0 = tắt
+         * Default: 0
+         */
+        private int topN = 0;
+
+        /**
+         * File lưu các key dùng nhiều nhất khi node dừng, mỗi node một file riêng
+         * Default: data/sequence-hot-keys.txt
+         */
+        private String hotKeysFile = "data/sequence-hot-keys.txt";
+
+        /**
+         * Số key được chuẩn bị song song
+         * Default: 8
+         */
+        private int parallelism = 8;
+
+        /**
+         * Thời gian chờ tối đa, quá hạn thì vẫn khởi động (các key còn lại chuẩn bị ở lần dùng đầu)
+         * Default: 30000
+         */
+        private long timeoutMs = 30_000;
+    }
+
+    @Data
+    public static class Striped {
+        /**
+         * Số counter con mặc định của key STRIPED, nên lớn hơn số node vài lần để các node
+         * ít khi chọn trùng counter. Không đổi khi key đã có dữ liệu (số cũ sẽ bị cấp lại)
+         * Default: 16
+         */
+        private int stripes = 16;
+    }
+
+    @Data
+    public static class Journal {
+        /**
+         * Ghi đoạn đã lease và checkpoint của từng key vào file memory-mapped,
+         * khi store lỗi thì tiếp tục cấp từ phần còn lại (kể cả sau restart)
+         * Default: false
+         */
+        private boolean enabled = false;
+
+        /**
+         * File journal, mỗi node một file riêng
+         * Default: data/sequence-journal.dat
+         */
+        private String path = "data/sequence-journal.dat";
+
+        /**
+         * Số key tối đa được journal (mỗi key 128 byte)
+         * Default: 4096
+         */
+        private int maxKeys = 4096;
+
+        /**
+         * Ghi checkpoint mỗi N giá trị, restart mất tối đa N số của mỗi key
+         * Default: 100
+         */
+        private long checkpointInterval = 100;
+
+        /**
+         * Force xuống đĩa mỗi khi ghi đoạn mới (chống mất điện, chậm hơn)
+         * Default: false
+         */
+        private boolean fsync = false;
+    }
+
+    @Data
+    public static class Snowflake {
+        /**
+         * Mốc thời gian của timestamp trong ID (epoch milliseconds)
+         * Default: 1704067200000 (2024-01-01T00:00:00Z)
+         */
+        private long epochMillis = 1_704_067_200_000L;
+
+        /**
+         * Đồng hồ lùi tối đa bao nhiêu milliseconds thì vẫn tiếp tục cấp (chờ đồng hồ theo kịp),
+         * lùi nhiều hơn thì báo lỗi
+         * Default: 5
+         */
+        private long maxBackwardMs = 5;
+
+        /**
+         * Node cha (dưới base-path) chứa các ephemeral-sequential node cấp worker ID
+         * Default: _snowflake
+         */
+        private String workerPath = "_snowflake";
+    }
+}
@@ -1,19 +1,42 @@
 package com.example.commonserviceofficial.sequence.controller;
 
+import com.example.commonserviceofficial.sequence.SequenceValidationException;
+import com.example.commonserviceofficial.sequence.config.SequenceProperties;
+import com.example.commonserviceofficial.sequence.dto.FormattedSequenceResponse;
+import com.example.commonserviceofficial.sequence.dto.SequenceImportResponse;
+import com.example.commonserviceofficial.sequence.dto.SequenceBatchRequest;
+import com.example.commonserviceofficial.sequence.dto.SequenceBatchResponse;
 import com.example.commonserviceofficial.sequence.dto.SequenceListResponse;
+import com.example.commonserviceofficial.sequence.dto.SequenceMultiRequest;
+import com.example.commonserviceofficial.sequence.dto.SequenceMultiResponse;
 import com.example.commonserviceofficial.sequence.dto.SequenceRequest;
 import com.example.commonserviceofficial.sequence.dto.SequenceResponse;
+import com.example.commonserviceofficial.sequence.dto.SequenceSnapshotEntry;
+import com.example.commonserviceofficial.sequence.service.KeyCacheStats;
 import com.example.commonserviceofficial.sequence.service.SequenceGeneratorService;
+import com.example.commonserviceofficial.sequence.store.StoreStatus;
+import com.example.commonserviceofficial.sequence.store.StoreUnavailableException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
 
 /**
  * REST Controller cho Sequence Generation API
@@ -24,8 +47,13 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class SequenceController {
 
+    // Số lệnh đọc ZooKeeper song song khi liệt kê sequences
+    private static final int LIST_CONCURRENCY = 32;
+
     private final SequenceGeneratorService sequenceGeneratorService;
 
+    private final SequenceProperties sequenceProperties;
+
     /**
      * Generate số sequence tiếp theo cho keyname
      * 
@@ -33,20 +61,8 @@ public class SequenceController {
      * Body: {"keyName": "ORDER_ID"}
      */
     @PostMapping("/generate")
-    public ResponseEntity<SequenceResponse> generateNext(@Valid @RequestBody SequenceRequest request) {
-        try {
-            long nextValue = sequenceGeneratorService.generateNext(request.getKeyName());
-            
-            SequenceResponse response = SequenceResponse.success(request.getKeyName(), nextValue);
-            
-            log.info("Generated sequence for key '{}': {}", request.getKeyName(), nextValue);
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("Failed to generate sequence for key: {}", request.getKeyName(), e);
-            SequenceResponse response = SequenceResponse.error(request.getKeyName(), e.getMessage());
-            return ResponseEntity.badRequest().body(response);
-        }
+    public Mono<ResponseEntity<SequenceResponse>> generateNext(@Valid @RequestBody SequenceRequest request) {
+        return generate(request.getKeyName());
     }
 
     /**
@@ -55,20 +71,231 @@ public class SequenceController {
      * POST /api/sequences/generate/{keyName}
      */
     @PostMapping("/generate/{keyName}")
-    public ResponseEntity<SequenceResponse> generateNextByPath(@PathVariable String keyName) {
-        try {
-            long nextValue = sequenceGeneratorService.generateNext(keyName);
-            
-            SequenceResponse response = SequenceResponse.success(keyName, nextValue);
-            
-            log.info("Generated sequence for key '{}': {}", keyName, nextValue);
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("Failed to generate sequence for key: {}", keyName, e);
-            SequenceResponse response = SequenceResponse.error(keyName, e.getMessage());
-            return ResponseEntity.badRequest().body(response);
+    public Mono<ResponseEntity<SequenceResponse>> generateNextByPath(@PathVariable String keyName) {
+        return generate(keyName);
+    }
+
+    private Mono<ResponseEntity<SequenceResponse>> generate(String keyName) {
+        return Mono.fromFuture(() -> sequenceGeneratorService.generateNextAsync(keyName))
+                .map(nextValue -> {
+                    log.info("Generated sequence for key '{}': {}", keyName, nextValue);
+                    return ResponseEntity.ok(SequenceResponse.success(keyName, nextValue));
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to generate sequence for key: {}", keyName, e);
+                    return Mono.just(ResponseEntity.status(statusOf(e)).body(SequenceResponse.error(keyName, e.getMessage())));
+                });
+    }
+
+    /**
+     * Generate số định dạng theo mẫu của keyname (sequence.keys.{keyName}.format)
+     * 
+     * POST /api/sequences/generate/{keyName}/formatted
+     */
+    @PostMapping("/generate/{keyName}/formatted")
+    public Mono<ResponseEntity<FormattedSequenceResponse>> generateFormatted(@PathVariable String keyName) {
+        return Mono.fromFuture(() -> sequenceGeneratorService.generateFormattedAsync(keyName))
+                .map(sequence -> {
+                    log.info("Generated formatted sequence for key '{}': {}", keyName, sequence.formatted());
+                    return ResponseEntity.ok(FormattedSequenceResponse.success(sequence));
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to generate formatted sequence for key: {}", keyName, e);
+                    return Mono.just(ResponseEntity.status(statusOf(e))
+                            .body(FormattedSequenceResponse.error(keyName, e.getMessage())));
+                });
+    }
+
+    /**
+     * Generate một lúc nhiều số sequence cho keyname
+     * 
+     * POST /api/sequences/generate-batch
+     * Body: {"keyName": "ORDER_ID", "count": 500}
+     */
+    @PostMapping("/generate-batch")
+    public Mono<ResponseEntity<SequenceBatchResponse>> generateBatch(@Valid @RequestBody SequenceBatchRequest request) {
+        // Batch có thể lease trực tiếp trên ZooKeeper, chạy ngoài event loop
+        return Mono.fromCallable(() -> sequenceGeneratorService.generateBatch(request.getKeyName(), request.getCount()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ranges -> {
+                    log.info("Generated batch of {} for key '{}': {}", request.getCount(), request.getKeyName(), ranges);
+                    return ResponseEntity.ok(SequenceBatchResponse.success(request.getKeyName(), request.getCount(), ranges));
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to generate batch for key: {}", request.getKeyName(), e);
+                    return Mono.just(ResponseEntity.status(statusOf(e))
+                            .body(SequenceBatchResponse.error(request.getKeyName(), e.getMessage())));
+                });
+    }
+
+    /**
+     * Generate một số cho mỗi key trong một request, segment hết được lease chung một transaction
+     * 
+     * POST /api/sequences/generate-multi
+     * Body: {"keyNames": ["ORDER_ID", "INVOICE_NO", "PAYMENT_REF"]}
+     */
+    @PostMapping("/generate-multi")
+    public Mono<ResponseEntity<SequenceMultiResponse>> generateMulti(@Valid @RequestBody SequenceMultiRequest request) {
+        // Có thể lease trên store, chạy ngoài event loop
+        return Mono.fromCallable(() -> sequenceGeneratorService.generateMulti(request.getKeyNames()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(values -> {
+                    log.info("Generated sequences for keys {}: {}", request.getKeyNames(), values);
+                    return ResponseEntity.ok(SequenceMultiResponse.success(values));
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to generate sequences for keys: {}", request.getKeyNames(), e);
+                    return Mono.just(ResponseEntity.status(statusOf(e)).body(SequenceMultiResponse.error(e.getMessage())));
+                });
+    }
+
+    /**
+     * Stream liên tục các số của keyname (NDJSON hoặc server-sent events), tối đa count số nếu có.
+     * Mỗi lần client nhận hết dải trước mới lease dải tiếp theo (stream.chunk-size số), nên tốc độ
+     * đọc của client quyết định tốc độ lease; client ngắt kết nối thì phần chưa gửi của dải bị bỏ.
+     * 
+     * GET /api/sequences/{keyName}/stream?count=1000000
+     * Accept: application/x-ndjson | text/event-stream
+     */
+    @GetMapping(value = "/{keyName}/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<Long> stream(@PathVariable String keyName, @RequestParam(required = false) Long count) {
+        if (count != null && count < 1) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Count phải lớn hơn 0"));
+        }
+        long chunkSize = Math.min(sequenceProperties.getStream().getChunkSize(), sequenceProperties.getMaxBatchCount());
+        return Flux.defer(() -> {
+                    AtomicLong remaining = new AtomicLong(count != null ? count : Long.MAX_VALUE);
+                    // Lease chạy ngoài event loop; concatMap prefetch 0 nên chỉ lease khi client cần thêm
+                    return Mono.fromCallable(() -> sequenceGeneratorService.generateChunk(keyName,
+                                    Math.min(remaining.get(), chunkSize)))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .doOnNext(ranges -> ranges.forEach(range -> remaining.addAndGet(-range.size())))
+                            .repeat(() -> remaining.get() > 0);
+                })
+                .concatMap(ranges -> Flux.fromIterable(ranges)
+                        .concatMap(range -> Flux.fromStream(LongStream.rangeClosed(range.start(), range.end()).boxed())), 0)
+                .doOnSubscribe(subscription -> log.info("Streaming sequences for key '{}' (count {})", keyName, count))
+                .onErrorMap(e -> !(e instanceof ResponseStatusException), e -> {
+                    log.error("Failed to stream sequences for key: {}", keyName, e);
+                    return new ResponseStatusException(statusOf(e), e.getMessage(), e);
+                });
+    }
+
+    /**
+     * Export giá trị trên store của mọi key (tên lưu trữ, gồm counter con STRIPED và key theo kỳ;
+     * key STRICT là số lớn nhất đã cấp), mỗi dòng một {"keyName": ..., "value": ...}, sắp xếp theo key
+     * 
+     * GET /api/sequences/export?prefix=ORDER
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<SequenceSnapshotEntry> exportSequences(@RequestParam(required = false) String prefix) {
+        return Mono.fromFuture(() -> sequenceGeneratorService.getStoredKeysAsync(prefix))
+                .flatMapMany(Flux::fromIterable)
+                .flatMapSequential(key -> Mono.fromFuture(() -> sequenceGeneratorService.getStoredValueAsync(key))
+                        .map(value -> new SequenceSnapshotEntry(key, value)), LIST_CONCURRENCY)
+                .onErrorMap(e -> !(e instanceof ResponseStatusException), e -> {
+                    log.error("Failed to export sequences", e);
+                    return new ResponseStatusException(statusOf(e), e.getMessage(), e);
+                });
+    }
+
+    /**
+     * Import NDJSON của export: mỗi lô snapshot.import-batch-size key được nâng lên ít nhất giá trị
+     * trong file (+ margin) bằng một transaction, không key nào bị giảm. Import lỗi giữa chừng thì
+     * các lô trước đã được áp dụng, chạy lại cùng file là an toàn. Giá trị + margin vượt Long.MAX_VALUE: 400.
+     * 
+     * POST /api/sequences/import?margin=1000
+     * Content-Type: application/x-ndjson
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public Mono<ResponseEntity<SequenceImportResponse>> importSequences(
+            @RequestBody Flux<SequenceSnapshotEntry> entries,
+            @RequestParam(defaultValue = "0") long margin) {
+        if (margin < 0) {
+            return Mono.just(ResponseEntity.badRequest().body(SequenceImportResponse.error(0, 0, "Margin không được âm")));
         }
+        AtomicLong received = new AtomicLong();
+        AtomicLong raised = new AtomicLong();
+        return entries
+                .buffer(sequenceProperties.getSnapshot().getImportBatchSize())
+                .concatMap(batch -> Mono.fromCallable(() -> {
+                            Map<String, Long> values = new LinkedHashMap<>();
+                            for (SequenceSnapshotEntry entry : batch) {
+                                if (entry.getKeyName() == null || entry.getValue() == null) {
+                                    throw new SequenceValidationException("Each line needs keyName and value: " + entry);
+                                }
+                                // Key STRICT không có độ trễ đồng bộ, cộng margin sẽ tạo khoảng trống
+                                long keyMargin = sequenceProperties.modeOf(entry.getKeyName())
+                                        == SequenceProperties.Mode.STRICT ? 0 : margin;
+                                long value;
+                                try {
+                                    value = Math.addExact(entry.getValue(), keyMargin);
+                                } catch (ArithmeticException e) {
+                                    throw new SequenceValidationException("Value + margin overflows for key '"
+                                            + entry.getKeyName() + "'");
+                                }
+                                values.merge(entry.getKeyName(), value, Math::max);
+                            }
+                            raised.addAndGet(sequenceGeneratorService.importValues(values));
+                            return received.addAndGet(batch.size());
+                        })
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .then(Mono.fromSupplier(() -> {
+                    log.info("Imported {} sequence values, raised {} keys", received.get(), raised.get());
+                    return ResponseEntity.ok(SequenceImportResponse.success(received.get(), raised.get()));
+                }))
+                .onErrorResume(e -> {
+                    log.error("Failed to import sequences after {} values", received.get(), e);
+                    return Mono.just(ResponseEntity.status(statusOf(e))
+                            .body(SequenceImportResponse.error(received.get(), raised.get(), e.getMessage())));
+                });
+    }
+
+    /**
+     * Giữ số tiếp theo của key STRICT (không khoảng trống)
+     * 
+     * POST /api/sequences/strict/{keyName}/reserve
+     */
+    @PostMapping("/strict/{keyName}/reserve")
+    public Mono<ResponseEntity<SequenceResponse>> reserve(@PathVariable String keyName) {
+        return strict(keyName, "reserve", () -> sequenceGeneratorService.reserveAsync(keyName), SequenceResponse::reserved);
+    }
+
+    /**
+     * Xác nhận số đã reserve
+     * 
+     * POST /api/sequences/strict/{keyName}/confirm/{value}
+     */
+    @PostMapping("/strict/{keyName}/confirm/{value}")
+    public Mono<ResponseEntity<SequenceResponse>> confirm(@PathVariable String keyName, @PathVariable Long value) {
+        return strict(keyName, "confirm", () -> sequenceGeneratorService.confirmAsync(keyName, value),
+                SequenceResponse::confirmed);
+    }
+
+    /**
+     * Trả lại số đã reserve (giao dịch bị hủy), số sẽ được cấp lại
+     * 
+     * POST /api/sequences/strict/{keyName}/release/{value}
+     */
+    @PostMapping("/strict/{keyName}/release/{value}")
+    public Mono<ResponseEntity<SequenceResponse>> release(@PathVariable String keyName, @PathVariable Long value) {
+        return strict(keyName, "release", () -> sequenceGeneratorService.releaseAsync(keyName, value),
+                SequenceResponse::released);
+    }
+
+    private Mono<ResponseEntity<SequenceResponse>> strict(String keyName, String action,
+                                                          Supplier<CompletableFuture<Long>> result,
+                                                          BiFunction<String, Long, SequenceResponse> response) {
+        return Mono.fromFuture(result)
+                .map(value -> {
+                    log.info("Strict {} for key '{}': {}", action, keyName, value);
+                    return ResponseEntity.ok(response.apply(keyName, value));
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to {} strict sequence for key: {}", action, keyName, e);
+                    return Mono.just(ResponseEntity.status(statusOf(e)).body(SequenceResponse.error(keyName, e.getMessage())));
+                });
     }
 
     /**
@@ -77,19 +304,13 @@ public class SequenceController {
      * GET /api/sequences/{keyName}
      */
     @GetMapping("/{keyName}")
-    public ResponseEntity<SequenceResponse> getCurrentValue(@PathVariable String keyName) {
-        try {
-            long currentValue = sequenceGeneratorService.getCurrentValue(keyName);
-            
-            SequenceResponse response = SequenceResponse.current(keyName, currentValue);
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("Failed to get current value for key: {}", keyName, e);
-            SequenceResponse response = SequenceResponse.error(keyName, e.getMessage());
-            return ResponseEntity.badRequest().body(response);
-        }
+    public Mono<ResponseEntity<SequenceResponse>> getCurrentValue(@PathVariable String keyName) {
+        return Mono.fromFuture(() -> sequenceGeneratorService.getCurrentValueAsync(keyName))
+                .map(currentValue -> ResponseEntity.ok(SequenceResponse.current(keyName, currentValue)))
+                .onErrorResume(e -> {
+                    log.error("Failed to get current value for key: {}", keyName, e);
+                    return Mono.just(ResponseEntity.status(statusOf(e)).body(SequenceResponse.error(keyName, e.getMessage())));
+                });
     }
 
     /**
@@ -99,24 +320,13 @@ public class SequenceController {
      * Body: {"keyName": "ORDER_ID", "resetValue": 1000}
      */
     @PutMapping("/reset")
-    public ResponseEntity<SequenceResponse> resetSequence(@Valid @RequestBody SequenceRequest request) {
-        try {
-            if (request.getResetValue() == null) {
-                throw new IllegalArgumentException("Reset value is required");
-            }
-            
-            sequenceGeneratorService.resetSequence(request.getKeyName(), request.getResetValue());
-            
-            SequenceResponse response = SequenceResponse.reset(request.getKeyName(), request.getResetValue());
-            
-            log.info("Reset sequence for key '{}' to value: {}", request.getKeyName(), request.getResetValue());
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("Failed to reset sequence for key: {}", request.getKeyName(), e);
-            SequenceResponse response = SequenceResponse.error(request.getKeyName(), e.getMessage());
-            return ResponseEntity.badRequest().body(response);
+    public Mono<ResponseEntity<SequenceResponse>> resetSequence(@Valid @RequestBody SequenceRequest request) {
+        if (request.getResetValue() == null) {
+            log.error("Failed to reset sequence for key: {}: reset value is required", request.getKeyName());
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(SequenceResponse.error(request.getKeyName(), "Reset value is required")));
         }
+        return reset(request.getKeyName(), request.getResetValue());
     }
 
     /**
@@ -125,55 +335,66 @@ public class SequenceController {
      * PUT /api/sequences/reset/{keyName}/{value}
      */
     @PutMapping("/reset/{keyName}/{value}")
-    public ResponseEntity<SequenceResponse> resetSequenceByPath(
+    public Mono<ResponseEntity<SequenceResponse>> resetSequenceByPath(
             @PathVariable String keyName, 
             @PathVariable Long value) {
-        try {
-            sequenceGeneratorService.resetSequence(keyName, value);
-            
-            SequenceResponse response = SequenceResponse.reset(keyName, value);
-            
-            log.info("Reset sequence for key '{}' to value: {}", keyName, value);
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("Failed to reset sequence for key: {}", keyName, e);
-            SequenceResponse response = SequenceResponse.error(keyName, e.getMessage());
-            return ResponseEntity.badRequest().body(response);
-        }
+        return reset(keyName, value);
+    }
+
+    private Mono<ResponseEntity<SequenceResponse>> reset(String keyName, long value) {
+        return Mono.fromRunnable(() -> sequenceGeneratorService.resetSequence(keyName, value))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.fromSupplier(() -> {
+                    log.info("Reset sequence for key '{}' to value: {}", keyName, value);
+                    return ResponseEntity.ok(SequenceResponse.reset(keyName, value));
+                }))
+                .onErrorResume(e -> {
+                    log.error("Failed to reset sequence for key: {}", keyName, e);
+                    return Mono.just(ResponseEntity.status(statusOf(e)).body(SequenceResponse.error(keyName, e.getMessage())));
+                });
     }
 
     /**
-     * Lấy danh sách tất cả sequences
+     * Lấy danh sách sequences, có thể lọc theo prefix và phân trang
      * 
      * GET /api/sequences
+     * GET /api/sequences?prefix=INV_&page=0&size=100
      */
     @GetMapping
-    public ResponseEntity<SequenceListResponse> getAllSequences() {
-        try {
-            Set<String> keys = sequenceGeneratorService.getAllKeys();
-            List<String> keyList = keys.stream().sorted().toList();
-            
-            Map<String, Long> sequences = new HashMap<>();
-            for (String key : keyList) {
-                try {
-                    long value = sequenceGeneratorService.getCurrentValue(key);
-                    sequences.put(key, value);
-                } catch (Exception e) {
-                    log.warn("Failed to get value for key: {}", key, e);
-                    sequences.put(key, -1L); // Đánh dấu lỗi
-                }
-            }
-            
-            SequenceListResponse response = SequenceListResponse.success(keyList, sequences);
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("Failed to get all sequences", e);
-            SequenceListResponse response = SequenceListResponse.error(e.getMessage());
-            return ResponseEntity.badRequest().body(response);
+    public Mono<ResponseEntity<SequenceListResponse>> getAllSequences(
+            @RequestParam(required = false) String prefix,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        if (page < 0 || (size != null && size < 1)) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(SequenceListResponse.error("Page must be >= 0 and size must be > 0")));
         }
+        boolean paged = size != null;
+        int limit = paged ? size : Integer.MAX_VALUE;
+        int offset = (int) Math.min((long) page * limit, Integer.MAX_VALUE);
+
+        return Mono.fromFuture(() -> sequenceGeneratorService.listKeysAsync(prefix, offset, limit))
+                .flatMap(keyPage -> {
+                    List<String> keyList = keyPage.keys();
+                    
+                    // Đọc song song, tối đa LIST_CONCURRENCY request ZooKeeper cùng lúc
+                    // (có mirror thì giá trị lấy từ memory)
+                    return Flux.fromIterable(keyList)
+                            .flatMap(key -> Mono.fromFuture(() -> sequenceGeneratorService.getCurrentValueAsync(key))
+                                    .onErrorResume(e -> {
+                                        log.warn("Failed to get value for key: {}", key, e);
+                                        return Mono.just(-1L); // Đánh dấu lỗi
+                                    })
+                                    .map(value -> Map.entry(key, value)), LIST_CONCURRENCY)
+                            .collectMap(Map.Entry::getKey, Map.Entry::getValue, HashMap::new)
+                            .map(sequences -> ResponseEntity.ok(paged
+                                    ? SequenceListResponse.page(keyList, sequences, keyPage.totalCount(), page, size)
+                                    : SequenceListResponse.success(keyList, sequences)));
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to get all sequences", e);
+                    return Mono.just(ResponseEntity.status(statusOf(e)).body(SequenceListResponse.error(e.getMessage())));
+                });
     }
 
     /**
@@ -182,51 +403,92 @@ public class SequenceController {
      * DELETE /api/sequences/{keyName}
      */
     @DeleteMapping("/{keyName}")
-    public ResponseEntity<SequenceResponse> deleteSequence(@PathVariable String keyName) {
-        try {
-            sequenceGeneratorService.deleteSequence(keyName);
-            
-            SequenceResponse response = new SequenceResponse(
-                keyName, null, null, "SUCCESS", "Sequence deleted successfully"
-            );
-            
-            log.info("Deleted sequence for key: {}", keyName);
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            log.error("Failed to delete sequence for key: {}", keyName, e);
-            SequenceResponse response = SequenceResponse.error(keyName, e.getMessage());
-            return ResponseEntity.badRequest().body(response);
-        }
+    public Mono<ResponseEntity<SequenceResponse>> deleteSequence(@PathVariable String keyName) {
+        return Mono.fromRunnable(() -> sequenceGeneratorService.deleteSequence(keyName))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.fromSupplier(() -> {
+                    log.info("Deleted sequence for key: {}", keyName);
+                    return ResponseEntity.ok(new SequenceResponse(
+                        keyName, null, null, "SUCCESS", "Sequence deleted successfully"
+                    ));
+                }))
+                .onErrorResume(e -> {
+                    log.error("Failed to delete sequence for key: {}", keyName, e);
+                    return Mono.just(ResponseEntity.status(statusOf(e)).body(SequenceResponse.error(keyName, e.getMessage())));
+                });
     }
 
     /**
      * Health check cho ZooKeeper connection
      * 
      * GET /api/sequences/health
+     *
+     * Khi store mất kết nối trả về DEGRADED (200): node vẫn cấp được từ các đoạn đang giữ
      */
     @GetMapping("/health")
-    public ResponseEntity<Map<String, Object>> healthCheck() {
+    public Mono<ResponseEntity<Map<String, Object>>> healthCheck() {
+        StoreStatus storeStatus = sequenceGeneratorService.getStoreStatus();
+        if (!storeStatus.isAvailable()) {
+            Map<String, Object> health = storeHealth(storeStatus);
+            health.put("status", "DEGRADED");
+            health.put("message", "Sequence store is unreachable, serving from held ranges");
+            return Mono.just(ResponseEntity.ok(health));
+        }
+
+        // Test bằng cách lấy danh sách keys
+        return Mono.fromFuture(sequenceGeneratorService::getAllKeysAsync)
+                .map(keys -> {
+                    Map<String, Object> health = storeHealth(storeStatus);
+                    health.put("status", "UP");
+                    health.put("totalKeys", keys.size());
+                    health.put("message", "ZooKeeper sequence generator is healthy");
+                    return ResponseEntity.ok(health);
+                })
+                .onErrorResume(e -> {
+                    Map<String, Object> health = storeHealth(storeStatus);
+                    health.put("status", "DOWN");
+                    health.put("zookeeper", "DISCONNECTED");
+                    health.put("error", e.getMessage());
+                    health.put("message", "ZooKeeper sequence generator is unhealthy");
+                    return Mono.just(ResponseEntity.status(503).body(health));
+                });
+    }
+
+    private Map<String, Object> storeHealth(StoreStatus storeStatus) {
         Map<String, Object> health = new HashMap<>();
-        
-        try {
-            // Test bằng cách lấy danh sách keys
-            Set<String> keys = sequenceGeneratorService.getAllKeys();
-            
-            health.put("status", "UP");
-            health.put("zookeeper", "CONNECTED");
-            health.put("totalKeys", keys.size());
-            health.put("message", "ZooKeeper sequence generator is healthy");
-            
-            return ResponseEntity.ok(health);
-            
-        } catch (Exception e) {
-            health.put("status", "DOWN");
-            health.put("zookeeper", "DISCONNECTED");
-            health.put("error", e.getMessage());
-            health.put("message", "ZooKeeper sequence generator is unhealthy");
-            
-            return ResponseEntity.status(503).body(health);
+        health.put("zookeeper", storeStatus.state().name());
+        health.put("degradedSince", storeStatus.degradedSince());
+        health.put("degradedMillis", storeStatus.degradedMillis());
+        health.put("degradedCount", storeStatus.degradedCount());
+
+        KeyCacheStats cacheStats = sequenceGeneratorService.getKeyCacheStats();
+        Map<String, Object> cache = new HashMap<>();
+        cache.put("size", cacheStats.size());
+        cache.put("hits", cacheStats.hits());
+        cache.put("misses", cacheStats.misses());
+        cache.put("hitRatio", cacheStats.hitRatio());
+        cache.put("evictions", cacheStats.evictions());
+        cache.put("returnedRanges", cacheStats.returnedRanges());
+        cache.put("returnedValues", cacheStats.returnedValues());
+        health.put("cache", cache);
+        return health;
+    }
+
+    /**
+     * Store mất kết nối và hết số: 503 để client retry sang node khác; request không hợp lệ
+     * (SequenceValidationException): 400; lỗi phía server (store lỗi, giá trị trên store hỏng,
+     * hết lượt retry...): 500
+     */
+    private static HttpStatus statusOf(Throwable error) {
+        HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StoreUnavailableException) {
+                return HttpStatus.SERVICE_UNAVAILABLE;
+            }
+            if (cause instanceof SequenceValidationException) {
+                status = HttpStatus.BAD_REQUEST;
+            }
         }
+        return status;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,31 @@
+package com.example.commonserviceofficial.sequence.dto;
+
+import com.example.commonserviceofficial.sequence.format.FormattedSequence;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO cho số định dạng (POST /api/sequences/generate/{keyName}/formatted)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormattedSequenceResponse {
+
+    private String keyName;
+    private String periodKey;
+    private Long value;
+    private String formatted;
+    private String status;
+    private String message;
+
+    public static FormattedSequenceResponse success(FormattedSequence sequence) {
+        return new FormattedSequenceResponse(sequence.keyName(), sequence.periodKey(), sequence.value(),
+                sequence.formatted(), "SUCCESS", "Formatted sequence generated successfully");
+    }
+
+    public static FormattedSequenceResponse error(String keyName, String message) {
+        return new FormattedSequenceResponse(keyName, null, null, null, "ERROR", message);
+    }
+}
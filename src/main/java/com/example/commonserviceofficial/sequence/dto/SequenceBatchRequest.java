@@ -0,0 +1,20 @@
+package com.example.commonserviceofficial.sequence.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * Request DTO cho generate batch
+ */
+@Data
+public class SequenceBatchRequest {
+
+    @NotBlank(message = "Key name không được để trống")
+    private String keyName;
+
+    @NotNull(message = "Count không được để trống")
+    @Min(value = 1, message = "Count phải lớn hơn 0")
+    private Long count;
+}
@@ -0,0 +1,31 @@
+package com.example.commonserviceofficial.sequence.dto;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO cho generate batch
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SequenceBatchResponse {
+
+    private String keyName;
+    private Long count;
+    private List<IdRange> ranges;
+    private String status;
+    private String message;
+
+    public static SequenceBatchResponse success(String keyName, long count, List<IdRange> ranges) {
+        return new SequenceBatchResponse(keyName, count, ranges, "SUCCESS", "Sequence batch generated successfully");
+    }
+
+    public static SequenceBatchResponse error(String keyName, String message) {
+        return new SequenceBatchResponse(keyName, null, null, "ERROR", message);
+    }
+}
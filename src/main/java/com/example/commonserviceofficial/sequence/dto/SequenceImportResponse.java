@@ -0,0 +1,27 @@
+package com.example.commonserviceofficial.sequence.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO cho import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SequenceImportResponse {
+
+    private Long received;
+    private Long raised;
+    private String status;
+    private String message;
+
+    public static SequenceImportResponse success(long received, long raised) {
+        return new SequenceImportResponse(received, raised, "SUCCESS", "Sequences imported successfully");
+    }
+
+    public static SequenceImportResponse error(long received, long raised, String message) {
+        return new SequenceImportResponse(received, raised, "ERROR", message);
+    }
+}
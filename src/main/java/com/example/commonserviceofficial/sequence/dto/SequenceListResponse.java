@@ -18,6 +18,8 @@ public class SequenceListResponse {
     private List<String> keys;
     private Map<String, Long> sequences;
     private int totalCount;
+    private Integer page;
+    private Integer size;
     private String status;
     private String message;
     
@@ -26,12 +28,27 @@ public class SequenceListResponse {
             keys, 
             sequences, 
             keys.size(), 
+            null,
+            null,
+            "SUCCESS", 
+            "Sequences retrieved successfully"
+        );
+    }
+    
+    public static SequenceListResponse page(List<String> keys, Map<String, Long> sequences,
+                                            int totalCount, int page, int size) {
+        return new SequenceListResponse(
+            keys, 
+            sequences, 
+            totalCount, 
+            page,
+            size,
             "SUCCESS", 
             "Sequences retrieved successfully"
         );
     }
     
     public static SequenceListResponse error(String message) {
-        return new SequenceListResponse(null, null, 0, "ERROR", message);
+        return new SequenceListResponse(null, null, 0, null, null, "ERROR", message);
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.example.commonserviceofficial.sequence.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO cho generate nhiều key
+ */
+@Data
+public class SequenceMultiRequest {
+
+    @NotEmpty(message = "Danh sách key không được để trống")
+    private List<@NotBlank(message = "Key name không được để trống") String> keyNames;
+}
@@ -0,0 +1,28 @@
+package com.example.commonserviceofficial.sequence.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Response DTO cho generate nhiều key
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SequenceMultiResponse {
+
+    private Map<String, Long> values;
+    private String status;
+    private String message;
+
+    public static SequenceMultiResponse success(Map<String, Long> values) {
+        return new SequenceMultiResponse(values, "SUCCESS", "Sequences generated successfully");
+    }
+
+    public static SequenceMultiResponse error(String message) {
+        return new SequenceMultiResponse(null, "ERROR", message);
+    }
+}
@@ -30,6 +30,18 @@ public class SequenceResponse {
         return new SequenceResponse(keyName, resetValue, null, "SUCCESS", "Sequence reset successfully");
     }
     
+    public static SequenceResponse reserved(String keyName, Long value) {
+        return new SequenceResponse(keyName, null, value, "RESERVED", "Sequence reserved, confirm or release it");
+    }
+    
+    public static SequenceResponse confirmed(String keyName, Long value) {
+        return new SequenceResponse(keyName, value, null, "SUCCESS", "Sequence confirmed");
+    }
+    
+    public static SequenceResponse released(String keyName, Long value) {
+        return new SequenceResponse(keyName, value, null, "SUCCESS", "Sequence released");
+    }
+    
     public static SequenceResponse error(String keyName, String message) {
         return new SequenceResponse(keyName, null, null, "ERROR", message);
     }
@@ -0,0 +1,17 @@
+package com.example.commonserviceofficial.sequence.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một dòng NDJSON của export / import: key theo tên lưu trữ và giá trị trên store
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SequenceSnapshotEntry {
+
+    private String keyName;
+    private Long value;
+}
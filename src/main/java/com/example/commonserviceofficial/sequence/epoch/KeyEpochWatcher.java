@@ -0,0 +1,185 @@
+package com.example.commonserviceofficial.sequence.epoch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Epoch của từng sequence key, dùng để hủy cache trên toàn cluster.
+ *
+ * Mỗi key có một znode {epochsPath}/{keyName} chứa số epoch. Reset hoặc delete tăng epoch,
+ * mọi node watch thư mục epoch (CuratorCache) và bỏ counter / segment đang cache của key
+ * ngay khi thấy epoch mới, thay vì tiếp tục cấp số từ giá trị cũ.
+ */
+@Slf4j
+public class KeyEpochWatcher {
+
+    private static final int MAX_BUMP_RETRIES = 10;
+
+    private final CuratorFramework curatorFramework;
+    private final String epochsPath;
+    private final Consumer<String> onInvalidate;
+    private final CuratorCache cache;
+
+    // Epoch lớn nhất node này đã biết cho từng key, tránh hủy cache hai lần cho cùng một thay đổi
+    private final ConcurrentHashMap<String, Long> knownEpochs = new ConcurrentHashMap<>();
+
+    public KeyEpochWatcher(CuratorFramework curatorFramework, String epochsPath, Consumer<String> onInvalidate) {
+        this.curatorFramework = curatorFramework;
+        this.epochsPath = epochsPath;
+        this.onInvalidate = onInvalidate;
+        this.cache = CuratorCache.build(curatorFramework, epochsPath);
+
+        // Chỉ nhận thay đổi sau khi nạp xong: epoch có sẵn lúc khởi động không cần hủy gì
+        cache.listenable().addListener(CuratorCacheListener.builder()
+                .forCreates(this::onEpoch)
+                .forChanges((oldData, newData) -> onEpoch(newData))
+                .afterInitialized()
+                .build());
+    }
+
+    public void start() throws Exception {
+        if (curatorFramework.checkExists().forPath(epochsPath) == null) {
+            try {
+                curatorFramework.create().creatingParentsIfNeeded().forPath(epochsPath);
+            } catch (KeeperException.NodeExistsException ignored) {
+                // Node khác vừa tạo
+            }
+        }
+        cache.start();
+    }
+
+    public void close() {
+        cache.close();
+    }
+
+    /**
+     * Epoch hiện tại node này biết cho key (theo CuratorCache và các lần bump của chính node),
+     * 0 nếu key chưa từng bị reset / delete
+     */
+    public long epochOf(String keyName) {
+        long cached = cache.get(epochsPath + "/" + keyName)
+                .map(ChildData::getData)
+                .map(data -> {
+                    try {
+                        return Long.parseLong(new String(data));
+                    } catch (NumberFormatException e) {
+                        return 0L;
+                    }
+                })
+                .orElse(0L);
+        return Math.max(cached, knownEpochs.getOrDefault(keyName, 0L));
+    }
+
+    /**
+     * Tăng epoch của key (compare-and-set theo version)
+     *
+     * @return epoch mới
+     */
+    public long bump(String keyName) throws Exception {
+        String path = epochsPath + "/" + keyName;
+
+        for (int attempt = 1; attempt <= MAX_BUMP_RETRIES; attempt++) {
+            Stat stat = new Stat();
+            long epoch;
+            try {
+                epoch = Long.parseLong(new String(curatorFramework.getData().storingStatIn(stat).forPath(path))) + 1;
+            } catch (KeeperException.NoNodeException e) {
+                try {
+                    curatorFramework.create().creatingParentsIfNeeded().forPath(path, "1".getBytes());
+                    knownEpochs.merge(keyName, 1L, Math::max);
+                    return 1L;
+                } catch (KeeperException.NodeExistsException ignored) {
+                    continue;
+                }
+            }
+
+            try {
+                curatorFramework.setData().withVersion(stat.getVersion()).forPath(path, String.valueOf(epoch).getBytes());
+                // Event của chính thay đổi này sẽ bị bỏ qua, không hủy cache lần nữa
+                knownEpochs.merge(keyName, epoch, Math::max);
+                return epoch;
+            } catch (KeeperException.BadVersionException e) {
+                log.debug("Epoch bump conflict for key '{}' (attempt {}/{})", keyName, attempt, MAX_BUMP_RETRIES);
+            }
+        }
+
+        throw new IllegalStateException("Cannot bump epoch for key '" + keyName + "'");
+    }
+
+    /**
+     * Tăng epoch của nhiều key trong một transaction, version lấy từ CuratorCache thay vì đọc lại.
+     * Cache chưa kịp cập nhật (xung đột version) thì tăng lần lượt từng key.
+     */
+    public void bumpAll(Collection<String> keyNames) throws Exception {
+        List<CuratorOp> operations = new ArrayList<>(keyNames.size());
+        Map<String, Long> epochs = new LinkedHashMap<>();
+        for (String keyName : keyNames) {
+            String path = epochsPath + "/" + keyName;
+            Optional<ChildData> current = cache.get(path);
+            if (current.isPresent() && current.get().getData() != null) {
+                long epoch = Long.parseLong(new String(current.get().getData())) + 1;
+                operations.add(curatorFramework.transactionOp().setData()
+                        .withVersion(current.get().getStat().getVersion())
+                        .forPath(path, String.valueOf(epoch).getBytes()));
+                epochs.put(keyName, epoch);
+            } else {
+                operations.add(curatorFramework.transactionOp().create().forPath(path, "1".getBytes()));
+                epochs.put(keyName, 1L);
+            }
+        }
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        try {
+            curatorFramework.transaction().forOperations(operations);
+            epochs.forEach((keyName, epoch) -> knownEpochs.merge(keyName, epoch, Math::max));
+        } catch (KeeperException.BadVersionException | KeeperException.NodeExistsException
+                 | KeeperException.NoNodeException e) {
+            log.debug("Batched epoch bump conflicted, bumping {} keys one by one", keyNames.size());
+            for (String keyName : keyNames) {
+                bump(keyName);
+            }
+        }
+    }
+
+    private void onEpoch(ChildData data) {
+        String path = data.getPath();
+        if (path.length() <= epochsPath.length() + 1 || data.getData() == null) {
+            return;
+        }
+        String keyName = path.substring(epochsPath.length() + 1);
+
+        long epoch;
+        try {
+            epoch = Long.parseLong(new String(data.getData()));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring invalid epoch node: {}", path);
+            return;
+        }
+
+        Long known = knownEpochs.get(keyName);
+        if (known != null && epoch <= known) {
+            return;
+        }
+        knownEpochs.merge(keyName, epoch, Math::max);
+
+        log.info("Sequence key '{}' changed on another node (epoch {}), dropping local cache", keyName, epoch);
+        onInvalidate.accept(keyName);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.commonserviceofficial.sequence.format;
+
+/**
+ * Một số định dạng đã cấp
+ *
+ * @param keyName   key gốc
+ * @param periodKey key của kỳ trên store (bằng keyName khi không rollover)
+ * @param value     số thứ tự trong kỳ
+ * @param formatted chuỗi đã định dạng
+ */
+public record FormattedSequence(String keyName, String periodKey, long value, String formatted) {
+}
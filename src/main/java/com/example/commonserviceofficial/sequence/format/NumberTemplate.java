@@ -0,0 +1,223 @@
+package com.example.commonserviceofficial.sequence.format;
+
+import com.example.commonserviceofficial.sequence.config.SequenceProperties;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mẫu số định dạng đã biên dịch của một key, ví dụ {@code INV-{yyyy}-{MM}-{seq:6}} → INV-2026-10-000123.
+ *
+ * Mẫu được tách thành các phần (literal, ngày, seq) một lần khi khởi động. Phần chữ của ngày
+ * và key của kỳ được dựng một lần mỗi ngày ({@link Day}); mỗi số chỉ còn chép các phần đã dựng
+ * và ghi chữ số vào StringBuilder dùng lại theo thread, nên mỗi số chỉ cấp phát String kết quả.
+ *
+ * Rollover không reset counter: mỗi kỳ là một key riêng {key}@{kỳ} trên store, bắt đầu từ 1,
+ * nên qua kỳ mới không có reset hàng loạt lúc nửa đêm và không có race giữa các node.
+ */
+public final class NumberTemplate {
+
+    private static final Pattern TOKEN = Pattern.compile("\\{(yyyy|yy|MM|dd|seq)(?::(\\d{1,2}))?}");
+
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    private enum PartType { LITERAL, YEAR, YEAR2, MONTH, DAY, SEQ }
+
+    private record Part(PartType type, String literal, int width) {
+    }
+
+    /**
+     * Phần đã dựng sẵn cho một ngày
+     *
+     * @param startMillis thời điểm bắt đầu ngày (theo múi giờ của mẫu)
+     * @param endMillis   thời điểm bắt đầu ngày hôm sau
+     * @param periodKey   key trên store của kỳ chứa ngày này
+     * @param texts       chữ của từng phần (null ở vị trí seq)
+     */
+    public record Day(long startMillis, long endMillis, String periodKey, String[] texts) {
+
+        boolean contains(long millis) {
+            return millis >= startMillis && millis < endMillis;
+        }
+    }
+
+    private final String keyName;
+    private final String pattern;
+    private final SequenceProperties.Rollover rollover;
+    private final ZoneId zone;
+    private final Part[] parts;
+    private final int seqWidth;
+
+    // Được gọi với key của kỳ cũ khi sang kỳ mới (dọn cache local)
+    private final Consumer<String> onRollover;
+
+    private volatile Day day;
+
+    public NumberTemplate(String keyName, String pattern, SequenceProperties.Rollover rollover, ZoneId zone,
+                          Consumer<String> onRollover) {
+        this.keyName = keyName;
+        this.pattern = pattern;
+        this.rollover = rollover != null ? rollover : SequenceProperties.Rollover.NONE;
+        this.zone = zone;
+        this.onRollover = onRollover;
+        this.parts = compile(pattern);
+
+        int width = -1;
+        for (Part part : parts) {
+            if (part.type() == PartType.SEQ) {
+                if (width >= 0) {
+                    throw new IllegalArgumentException("Format of key '" + keyName + "' has more than one {seq}");
+                }
+                width = part.width();
+            }
+        }
+        if (width < 0) {
+            throw new IllegalArgumentException("Format of key '" + keyName + "' has no {seq}: " + pattern);
+        }
+        this.seqWidth = width;
+    }
+
+    /**
+     * Phần dựng sẵn của ngày chứa nowMillis (chỉ dựng lại khi sang ngày mới)
+     */
+    public Day day(long nowMillis) {
+        Day current = day;
+        if (current != null && current.contains(nowMillis)) {
+            return current;
+        }
+        return refresh(nowMillis);
+    }
+
+    /**
+     * Định dạng số seq trong ngày đã cho
+     */
+    public String format(Day day, long seq) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        formatTo(out, day, seq);
+        return out.toString();
+    }
+
+    /**
+     * Ghi số đã định dạng vào out, không cấp phát
+     */
+    public void formatTo(StringBuilder out, Day day, long seq) {
+        String[] texts = day.texts();
+        for (int i = 0; i < parts.length; i++) {
+            if (texts[i] != null) {
+                out.append(texts[i]);
+            } else {
+                for (int digits = digits(seq); digits < seqWidth; digits++) {
+                    out.append('0');
+                }
+                out.append(seq);
+            }
+        }
+    }
+
+    public String getKeyName() {
+        return keyName;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public SequenceProperties.Rollover getRollover() {
+        return rollover;
+    }
+
+    private synchronized Day refresh(long nowMillis) {
+        Day previous = day;
+        if (previous != null && previous.contains(nowMillis)) {
+            return previous;
+        }
+
+        LocalDate date = Instant.ofEpochMilli(nowMillis).atZone(zone).toLocalDate();
+        long start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+        long end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        if (end <= start) {
+            end = start + DAY_MILLIS;
+        }
+
+        String[] texts = new String[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            Part part = parts[i];
+            texts[i] = switch (part.type()) {
+                case LITERAL -> part.literal();
+                case YEAR -> pad(date.getYear(), 4);
+                case YEAR2 -> pad(date.getYear() % 100, 2);
+                case MONTH -> pad(date.getMonthValue(), 2);
+                case DAY -> pad(date.getDayOfMonth(), 2);
+                case SEQ -> null;
+            };
+        }
+
+        Day next = new Day(start, end, periodKey(date), texts);
+        day = next;
+        if (previous != null && !previous.periodKey().equals(next.periodKey()) && onRollover != null) {
+            onRollover.accept(previous.periodKey());
+        }
+        return next;
+    }
+
+    private String periodKey(LocalDate date) {
+        return switch (rollover) {
+            case NONE -> keyName;
+            case DAILY -> keyName + SequenceProperties.PERIOD_SEPARATOR
+                    + pad(date.getYear(), 4) + pad(date.getMonthValue(), 2) + pad(date.getDayOfMonth(), 2);
+            case MONTHLY -> keyName + SequenceProperties.PERIOD_SEPARATOR
+                    + pad(date.getYear(), 4) + pad(date.getMonthValue(), 2);
+            case YEARLY -> keyName + SequenceProperties.PERIOD_SEPARATOR + pad(date.getYear(), 4);
+        };
+    }
+
+    private static Part[] compile(String pattern) {
+        List<Part> parts = new ArrayList<>();
+        Matcher matcher = TOKEN.matcher(pattern);
+        int last = 0;
+        while (matcher.find()) {
+            if (matcher.start() > last) {
+                parts.add(new Part(PartType.LITERAL, pattern.substring(last, matcher.start()), 0));
+            }
+            PartType type = switch (matcher.group(1)) {
+                case "yyyy" -> PartType.YEAR;
+                case "yy" -> PartType.YEAR2;
+                case "MM" -> PartType.MONTH;
+                case "dd" -> PartType.DAY;
+                default -> PartType.SEQ;
+            };
+            int width = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 0;
+            parts.add(new Part(type, null, width));
+            last = matcher.end();
+        }
+        if (last < pattern.length()) {
+            parts.add(new Part(PartType.LITERAL, pattern.substring(last), 0));
+        }
+        return parts.toArray(new Part[0]);
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        for (long v = value; v >= 10 || v <= -10; v /= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static String pad(int value, int width) {
+        StringBuilder text = new StringBuilder(width);
+        for (int digits = digits(value); digits < width; digits++) {
+            text.append('0');
+        }
+        return text.append(value).toString();
+    }
+}
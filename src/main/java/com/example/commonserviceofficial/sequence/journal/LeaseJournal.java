@@ -0,0 +1,341 @@
+package com.example.commonserviceofficial.sequence.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Journal local (file memory-mapped) của các đoạn số node đang giữ, để tiếp tục cấp
+ * an toàn khi store (ZooKeeper) không truy cập được, kể cả sau khi restart.
+ *
+ * Mỗi key chiếm một slot cố định gồm đoạn đã lease [start..end] và checkpoint:
+ * mọi giá trị ≤ checkpoint coi như đã cấp. Checkpoint được đẩy trước mỗi
+ * checkpointInterval giá trị nên hot path chỉ đọc một biến volatile; restart mất
+ * tối đa checkpointInterval số nhưng không bao giờ cấp trùng.
+ *
+ * Ghi vào mmap là ghi vào page cache, không mất khi process chết. Chống mất điện
+ * cần bật fsync (force khi ghi lease mới). Slot có CRC, slot ghi dở bị bỏ qua khi đọc lại.
+ */
+@Slf4j
+public class LeaseJournal {
+
+    private static final int MAGIC = 0x53514A4C; // "SQJL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    private static final int SLOT_SIZE = 128;
+    private static final int MAX_KEY_BYTES = 80;
+    private static final int KEY_LENGTH_OFFSET = 0;
+    private static final int KEY_OFFSET = 2;
+    private static final int START_OFFSET = 88;
+    private static final int END_OFFSET = 96;
+    private static final int CHECKPOINT_OFFSET = 104;
+    private static final int CRC_OFFSET = 112;
+
+    /**
+     * Trạng thái của một key đọc từ file lúc khởi động
+     */
+    public record Record(long start, long end, long checkpoint) {
+
+        /**
+         * Còn số chưa cấp trong đoạn
+         */
+        public boolean hasRemaining() {
+            return checkpoint < end;
+        }
+    }
+
+    private final Path file;
+    private final int maxKeys;
+    private final long checkpointInterval;
+    private final boolean fsync;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+
+    // Trạng thái đọc được lúc mở file, mỗi key chỉ được lấy ra một lần
+    private final Map<String, Record> recovered = new ConcurrentHashMap<>();
+
+    // Số thứ tự của lần ghi đoạn, duy nhất trong process (kể cả khi slot của key bị xóa rồi tạo lại)
+    private final AtomicLong leaseSequence = new AtomicLong();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    public LeaseJournal(Path file, int maxKeys, long checkpointInterval, boolean fsync) {
+        if (maxKeys < 1 || checkpointInterval < 1) {
+            throw new IllegalArgumentException("maxKeys and checkpointInterval must be positive");
+        }
+        this.file = file.toAbsolutePath();
+        this.maxKeys = maxKeys;
+        this.checkpointInterval = checkpointInterval;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Map file vào memory và đọc lại các slot hợp lệ
+     */
+    public synchronized void open() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        long startNanos = System.nanoTime();
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        int slots = maxKeys;
+        boolean existing = channel.size() >= HEADER_SIZE;
+        if (existing) {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) == MAGIC && header.getInt(4) == VERSION && header.getInt(12) == SLOT_SIZE) {
+                // Giữ số slot của file cũ để không mất dữ liệu khi đổi max-keys
+                slots = header.getInt(8);
+            } else {
+                log.warn("Sequence journal {} has an unknown format, reinitializing", file);
+                existing = false;
+            }
+        }
+
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * SLOT_SIZE);
+        if (!existing) {
+            for (int i = 0; i < HEADER_SIZE + slots * SLOT_SIZE; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, slots);
+            buffer.putInt(12, SLOT_SIZE);
+            buffer.force();
+        }
+
+        for (int slot = 0; slot < slots; slot++) {
+            int offset = HEADER_SIZE + slot * SLOT_SIZE;
+            String key = readKey(offset);
+            if (key == null) {
+                freeSlots.add(slot);
+                continue;
+            }
+            long start = buffer.getLong(offset + START_OFFSET);
+            long end = buffer.getLong(offset + END_OFFSET);
+            long checkpoint = buffer.getLong(offset + CHECKPOINT_OFFSET);
+            if (buffer.getLong(offset + CRC_OFFSET) != crc(key, start, end, checkpoint) || entries.containsKey(key)) {
+                log.warn("Discarding corrupt sequence journal slot {} (key '{}')", slot, key);
+                buffer.putShort(offset + KEY_LENGTH_OFFSET, (short) 0);
+                freeSlots.add(slot);
+                continue;
+            }
+            Entry entry = new Entry(key, offset, start, end, checkpoint);
+            entry.fromPreviousRun = true;
+            entries.put(key, entry);
+            recovered.put(key, new Record(start, end, checkpoint));
+        }
+
+        log.info("Sequence journal {} recovered {} keys in {} us", file, recovered.size(),
+                (System.nanoTime() - startNanos) / 1_000);
+    }
+
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Lấy (một lần) trạng thái của key đọc được lúc khởi động
+     *
+     * @return null nếu file không có key này hoặc đã lấy rồi
+     */
+    public Record recover(String keyName) {
+        return recovered.remove(keyName);
+    }
+
+    /**
+     * Ghi nhận đoạn [start..end] vừa trở thành đoạn đang dùng của key (chưa cấp số nào).
+     * Bỏ qua nếu start không lớn hơn checkpoint hiện tại (đoạn cũ ghi muộn).
+     *
+     * @return số thứ tự của lần ghi để {@link #clear(String, long) xóa đúng đoạn này},
+     *         hoặc -1 nếu không ghi
+     */
+    public long recordLease(String keyName, long start, long end) {
+        // Đã có đoạn mới thì trạng thái cũ trước restart không còn dùng
+        recovered.remove(keyName);
+        Entry entry = entryFor(keyName);
+        return entry != null ? entry.record(start, end) : -1;
+    }
+
+    /**
+     * Ghi nhận giá trị vừa cấp. Chỉ ghi file khi vượt checkpoint.
+     */
+    public void issued(String keyName, long value) {
+        Entry entry = entries.get(keyName);
+        if (entry != null && value > entry.checkpoint) {
+            entry.advance(value);
+        }
+    }
+
+    /**
+     * Xóa slot của key (reset / delete: đoạn đang giữ không còn hợp lệ)
+     */
+    public synchronized void clear(String keyName) {
+        recovered.remove(keyName);
+        Entry entry = entries.remove(keyName);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    /**
+     * Xóa slot của key nếu đoạn đang ghi trong slot vẫn là lần ghi lease (trả về từ
+     * {@link #recordLease}). Dùng khi bỏ một segment cụ thể: slot đã thuộc đoạn mới hơn thì giữ nguyên.
+     */
+    public synchronized void clear(String keyName, long lease) {
+        Entry entry = entries.get(keyName);
+        if (lease < 0 || entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.lease != lease) {
+                return;
+            }
+            entries.remove(keyName);
+            release(entry);
+        }
+    }
+
+    private void release(Entry entry) {
+        synchronized (entry) {
+            entry.released = true;
+            buffer.putShort(entry.offset + KEY_LENGTH_OFFSET, (short) 0);
+        }
+        freeSlots.add((entry.offset - HEADER_SIZE) / SLOT_SIZE);
+    }
+
+    private Entry entryFor(String keyName) {
+        Entry entry = entries.get(keyName);
+        if (entry != null) {
+            return entry;
+        }
+
+        byte[] key = keyName.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES) {
+            log.debug("Key '{}' is too long for the sequence journal", keyName);
+            return null;
+        }
+
+        synchronized (this) {
+            entry = entries.get(keyName);
+            if (entry != null) {
+                return entry;
+            }
+            Integer slot = freeSlots.poll();
+            if (slot == null) {
+                log.warn("Sequence journal is full ({} keys), key '{}' is not journaled", entries.size(), keyName);
+                return null;
+            }
+            int offset = HEADER_SIZE + slot * SLOT_SIZE;
+            // Slot chưa có đoạn nào: CRC không khớp cho tới lần record đầu tiên, đọc lại sẽ bỏ qua
+            buffer.put(offset + KEY_OFFSET, key);
+            buffer.putLong(offset + CRC_OFFSET, 0);
+            buffer.putShort(offset + KEY_LENGTH_OFFSET, (short) key.length);
+            entry = new Entry(keyName, offset, 0, -1, Long.MAX_VALUE);
+            entries.put(keyName, entry);
+            return entry;
+        }
+    }
+
+    private String readKey(int offset) {
+        int length = buffer.getShort(offset + KEY_LENGTH_OFFSET);
+        if (length <= 0 || length > MAX_KEY_BYTES) {
+            return null;
+        }
+        byte[] key = new byte[length];
+        buffer.get(offset + KEY_OFFSET, key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    private static long crc(String keyName, long start, long end, long checkpoint) {
+        CRC32 crc = new CRC32();
+        crc.update(keyName.getBytes(StandardCharsets.UTF_8));
+        byte[] values = new byte[24];
+        java.nio.ByteBuffer.wrap(values).putLong(start).putLong(end).putLong(checkpoint);
+        crc.update(values);
+        return crc.getValue();
+    }
+
+    /**
+     * Slot của một key. Mọi lần ghi slot đều giữ lock của entry.
+     */
+    private final class Entry {
+
+        private final String keyName;
+        private final int offset;
+
+        private long start;
+        private long end;
+        private volatile long checkpoint;
+        private boolean released;
+
+        // Số thứ tự của lần ghi đoạn hiện tại, -1 khi chưa ghi trong lần chạy này
+        private long lease = -1;
+
+        // Đoạn đọc từ file lúc khởi động: store có thể đã bị reset trong lúc node tắt,
+        // nên đoạn đầu tiên ghi trong lần chạy này luôn được nhận
+        private boolean fromPreviousRun;
+
+        private Entry(String keyName, int offset, long start, long end, long checkpoint) {
+            this.keyName = keyName;
+            this.offset = offset;
+            this.start = start;
+            this.end = end;
+            this.checkpoint = checkpoint;
+        }
+
+        synchronized long record(long newStart, long newEnd) {
+            // checkpoint = MAX_VALUE khi slot mới tạo, chưa có đoạn nào
+            if (released || (!fromPreviousRun && end >= start && newStart <= checkpoint)) {
+                return -1;
+            }
+            fromPreviousRun = false;
+            start = newStart;
+            end = newEnd;
+            write(newStart - 1);
+            if (fsync) {
+                buffer.force(offset, SLOT_SIZE);
+            }
+            lease = leaseSequence.incrementAndGet();
+            return lease;
+        }
+
+        synchronized void advance(long value) {
+            if (released || value <= checkpoint || value > end) {
+                return;
+            }
+            // Đặt trước checkpointInterval giá trị, không vượt quá cuối đoạn
+            write(end - value < checkpointInterval ? end : value + checkpointInterval - 1);
+        }
+
+        private void write(long newCheckpoint) {
+            buffer.putLong(offset + START_OFFSET, start);
+            buffer.putLong(offset + END_OFFSET, end);
+            buffer.putLong(offset + CHECKPOINT_OFFSET, newCheckpoint);
+            buffer.putLong(offset + CRC_OFFSET, crc(keyName, start, end, newCheckpoint));
+            // Ghi file trước khi thread khác thấy checkpoint mới và cấp giá trị ≤ checkpoint
+            checkpoint = newCheckpoint;
+        }
+    }
+}
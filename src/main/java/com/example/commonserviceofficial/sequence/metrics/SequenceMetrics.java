@@ -0,0 +1,239 @@
+package com.example.commonserviceofficial.sequence.metrics;
+
+import com.example.commonserviceofficial.sequence.config.SequenceProperties;
+import com.example.commonserviceofficial.sequence.store.StoreStatus;
+import com.example.commonserviceofficial.sequence.striped.Stripes;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer metrics của sequence generator:
+ * <ul>
+ *   <li>sequence.issued{key}: số giá trị đã cấp theo key gốc (bỏ stripe / kỳ), tối đa max-key-tags
+ *       key có tag riêng, các key sau gộp vào key=_other</li>
+ *   <li>sequence.refill{source, outcome}: thời gian lease segment mới (từ store hoặc free list),
+ *       count = số lần refill; sequence.refill.size: số giá trị mỗi lần refill</li>
+ *   <li>sequence.store.latency{store, operation=read|write, outcome}: histogram round-trip tới store</li>
+ *   <li>sequence.store.state{store, state}: 1 với trạng thái kết nối hiện tại, 0 với các trạng thái khác;
+ *       sequence.store.degraded.time / sequence.store.degraded.count: tổng thời gian và số lần mất kết nối</li>
+ *   <li>sequence.cache.hit.ratio và cache.* (Caffeine) của cache counter / segment</li>
+ * </ul>
+ * Không có MeterRegistry thì dùng registry rỗng, mọi meter là no-op.
+ */
+public class SequenceMetrics {
+
+    /**
+     * Tag key của các key vượt quá max-key-tags
+     */
+    public static final String OTHER_KEY = "_other";
+
+    public enum Operation {
+        READ, WRITE;
+
+        private final String tag = name().toLowerCase();
+    }
+
+    /**
+     * Lời gọi store có thể ném checked exception
+     */
+    @FunctionalInterface
+    public interface StoreCall<T> {
+        T call() throws Exception;
+    }
+
+    private final MeterRegistry registry;
+    private final String storeName;
+    private final int maxKeyTags;
+
+    private final ConcurrentHashMap<String, Counter> issued = new ConcurrentHashMap<>();
+    private final Counter otherIssued;
+
+    private final Timer[] storeTimers;
+    private final Timer refillFromStore;
+    private final Timer refillFromFreeList;
+    private final Timer refillFailed;
+    private final DistributionSummary refillSize;
+
+    public SequenceMetrics(MeterRegistry registry, String storeName, int maxKeyTags) {
+        this.registry = registry;
+        this.storeName = storeName;
+        this.maxKeyTags = maxKeyTags;
+        this.otherIssued = issuedCounter(OTHER_KEY);
+
+        Operation[] operations = Operation.values();
+        storeTimers = new Timer[operations.length * 2];
+        for (Operation operation : operations) {
+            storeTimers[operation.ordinal() * 2] = buildStoreTimer(operation, "success");
+            storeTimers[operation.ordinal() * 2 + 1] = buildStoreTimer(operation, "error");
+        }
+
+        refillFromStore = buildRefillTimer("store", "success");
+        refillFromFreeList = buildRefillTimer("free_list", "success");
+        refillFailed = buildRefillTimer("store", "error");
+        refillSize = DistributionSummary.builder("sequence.refill.size")
+                .description("Values leased per segment refill")
+                .baseUnit("values")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Metrics theo sequence.metrics, registry null hoặc metrics tắt thì không ghi gì
+     */
+    public static SequenceMetrics of(MeterRegistry registry, String storeName, SequenceProperties.Metrics config) {
+        MeterRegistry target = registry != null && config.isEnabled() ? registry : new CompositeMeterRegistry();
+        return new SequenceMetrics(target, storeName, config.getMaxKeyTags());
+    }
+
+    /**
+     * Ghi count giá trị đã cấp cho key
+     */
+    public void issued(String keyName, long count) {
+        String tagKey = tagKeyOf(keyName);
+        Counter counter = issued.get(tagKey);
+        if (counter == null) {
+            counter = issued.size() < maxKeyTags ? issued.computeIfAbsent(tagKey, this::issuedCounter) : otherIssued;
+        }
+        counter.increment(count);
+    }
+
+    /**
+     * Đo một lời gọi đồng bộ tới store
+     */
+    public <T> T store(Operation operation, StoreCall<T> call) throws Exception {
+        long startedAt = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.call();
+            success = true;
+            return result;
+        } finally {
+            storeTimer(operation, success).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Đo một lời gọi async tới store, tính tới khi future hoàn thành
+     */
+    public <T> CompletableFuture<T> storeAsync(Operation operation, Supplier<CompletableFuture<T>> call) {
+        long startedAt = System.nanoTime();
+        return call.get().whenComplete((result, error) -> storeTimer(operation, error == null)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Refill segment thành công
+     *
+     * @param startedAt   System.nanoTime() khi bắt đầu lease
+     * @param size        số giá trị của segment mới
+     * @param fromFreeList segment lấy từ free list của key thay vì lease từ store
+     */
+    public void refilled(long startedAt, long size, boolean fromFreeList) {
+        (fromFreeList ? refillFromFreeList : refillFromStore)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        refillSize.record(size);
+    }
+
+    public void refillFailed(long startedAt) {
+        refillFailed.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Đăng ký metrics cache.* của Caffeine (cache phải bật recordStats)
+     */
+    public void monitorCache(String cacheName, Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(registry, cache, cacheName);
+    }
+
+    /**
+     * Tỉ lệ cấp số tìm thấy trạng thái của key trong memory (không phải đọc / lease từ store)
+     */
+    public void cacheHitRatio(DoubleSupplier hitRatio) {
+        Gauge.builder("sequence.cache.hit.ratio", hitRatio, DoubleSupplier::getAsDouble)
+                .description("Share of sequence requests served from cached key state")
+                .strongReference(true)
+                .register(registry);
+    }
+
+    /**
+     * Trạng thái kết nối của store, đọc lại mỗi lần registry lấy giá trị
+     */
+    public void monitorStore(Supplier<StoreStatus> status) {
+        for (StoreStatus.State state : StoreStatus.State.values()) {
+            Gauge.builder("sequence.store.state", status, s -> s.get().state() == state ? 1 : 0)
+                    .description("1 when the sequence store is in this connection state")
+                    .tag("store", storeName)
+                    .tag("state", state.name().toLowerCase())
+                    .strongReference(true)
+                    .register(registry);
+        }
+        TimeGauge.builder("sequence.store.degraded.time", status, TimeUnit.MILLISECONDS,
+                        s -> s.get().degradedMillis())
+                .description("Total time the sequence store was not connected, including the current outage")
+                .tag("store", storeName)
+                .strongReference(true)
+                .register(registry);
+        Gauge.builder("sequence.store.degraded.count", status, s -> s.get().degradedCount())
+                .description("Times the sequence store lost its connection")
+                .tag("store", storeName)
+                .strongReference(true)
+                .register(registry);
+    }
+
+    /**
+     * Key gốc làm tag: bỏ số thứ tự stripe ({key}#{i}) và kỳ ({key}@{kỳ})
+     */
+    static String tagKeyOf(String keyName) {
+        String baseKey = Stripes.baseKeyOf(keyName);
+        int period = baseKey.indexOf(SequenceProperties.PERIOD_SEPARATOR);
+        return period > 0 ? baseKey.substring(0, period) : baseKey;
+    }
+
+    private Counter issuedCounter(String tagKey) {
+        return Counter.builder("sequence.issued")
+                .description("Sequence values issued")
+                .tag("key", tagKey)
+                .register(registry);
+    }
+
+    private Timer storeTimer(Operation operation, boolean success) {
+        return storeTimers[operation.ordinal() * 2 + (success ? 0 : 1)];
+    }
+
+    private Timer buildStoreTimer(Operation operation, String outcome) {
+        return Timer.builder("sequence.store.latency")
+                .description("Round-trip latency of sequence store calls")
+                .tag("store", storeName)
+                .tag("operation", operation.tag)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+
+    private Timer buildRefillTimer(String source, String outcome) {
+        return Timer.builder("sequence.refill")
+                .description("Latency of leasing a new segment")
+                .tag("source", source)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(100_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.commonserviceofficial.sequence.mirror;
+
+import com.example.commonserviceofficial.sequence.store.ZooKeeperKeyLayout;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Bản sao in-memory của toàn bộ sequence key dưới base path, cập nhật bằng watch (CuratorCache).
+ *
+ * Key được lưu trong skip list đã sắp xếp nên lọc theo prefix và phân trang không cần
+ * gọi ZooKeeper. Giá trị là dữ liệu của znode (mode SEGMENT: giá trị lớn nhất đã lease).
+ * Key được nhận ra theo {@link ZooKeeperKeyLayout}, cả node FLAT lẫn node trong bucket.
+ */
+@Slf4j
+public class SequenceMirror {
+
+    private final ZooKeeperKeyLayout layout;
+    private final CuratorCache cache;
+
+    private final ConcurrentSkipListMap<String, Long> values = new ConcurrentSkipListMap<>();
+
+    private volatile boolean initialized;
+
+    public SequenceMirror(CuratorFramework curatorFramework, ZooKeeperKeyLayout layout) {
+        this.layout = layout;
+        this.cache = CuratorCache.build(curatorFramework, layout.getBasePath());
+
+        cache.listenable().addListener(CuratorCacheListener.builder()
+                .forCreates(this::put)
+                .forChanges((oldData, newData) -> put(newData))
+                .forDeletes(this::remove)
+                .forInitialized(() -> {
+                    initialized = true;
+                    log.info("Sequence mirror initialized with {} keys", values.size());
+                })
+                .build());
+    }
+
+    public void start() {
+        cache.start();
+    }
+
+    public void close() {
+        initialized = false;
+        cache.close();
+    }
+
+    /**
+     * Mirror đã nạp xong dữ liệu ban đầu hay chưa (trước đó caller phải đọc ZooKeeper)
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    /**
+     * @return giá trị của key, null nếu mirror không có key này
+     */
+    public Long valueOf(String keyName) {
+        return values.get(keyName);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Các key bắt đầu bằng prefix (null = tất cả), đã sắp xếp
+     */
+    public NavigableMap<String, Long> entries(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return values;
+        }
+        return values.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Một trang key theo prefix
+     */
+    public List<String> keys(String prefix, int offset, int limit) {
+        List<String> page = new ArrayList<>(Math.min(limit, 1024));
+        int index = 0;
+        for (String key : entries(prefix).keySet()) {
+            if (index++ < offset) {
+                continue;
+            }
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(key);
+        }
+        return page;
+    }
+
+    private void put(ChildData data) {
+        String keyName = layout.keyNameOf(data.getPath());
+        if (keyName == null || data.getData() == null || data.getData().length == 0) {
+            return;
+        }
+        try {
+            values.put(keyName, Long.parseLong(new String(data.getData())));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring non-numeric sequence node: {}", data.getPath());
+        }
+    }
+
+    private void remove(ChildData data) {
+        String keyName = layout.keyNameOf(data.getPath());
+        if (keyName == null) {
+            return;
+        }
+        // Migrate FLAT -> bucket xóa node cũ sau khi tạo node mới: key vẫn còn
+        if (layout.isHashed() && (cache.get(layout.pathOf(keyName)).isPresent()
+                || cache.get(layout.flatPathOf(keyName)).isPresent())) {
+            return;
+        }
+        values.remove(keyName);
+    }
+}
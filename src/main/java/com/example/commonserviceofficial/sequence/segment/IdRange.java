@@ -0,0 +1,31 @@
+package com.example.commonserviceofficial.sequence.segment;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Một dải số liên tiếp [start..end] đã được cấp cho client
+ *
+ * @param start   giá trị đầu (bao gồm)
+ * @param end     giá trị cuối (bao gồm)
+ * @param version lần ghi của store đã lease dải này (mzxid / token), chỉ dùng để trả lại dải
+ *                cho store; {@link #NO_VERSION} nếu không rõ (dải cấp cho client, lấy từ free list...)
+ */
+@JsonIgnoreProperties("version")
+public record IdRange(long start, long end, long version) {
+
+    public static final long NO_VERSION = 0L;
+
+    public IdRange {
+        if (end < start) {
+            throw new IllegalArgumentException("Invalid range [" + start + ".." + end + "]");
+        }
+    }
+
+    public IdRange(long start, long end) {
+        this(start, end, NO_VERSION);
+    }
+
+    public long size() {
+        return end - start + 1;
+    }
+}
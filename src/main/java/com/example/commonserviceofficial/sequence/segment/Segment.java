@@ -0,0 +1,128 @@
+package com.example.commonserviceofficial.sequence.segment;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Một đoạn số [start..end] mà node hiện tại đã lease từ ZooKeeper.
+ * Cấp phát trong đoạn chỉ là một phép tăng AtomicLong, không có round trip tới ZooKeeper.
+ */
+public final class Segment {
+
+    /**
+     * Giá trị trả về khi đoạn đã cấp hết
+     */
+    public static final long EXHAUSTED = Long.MIN_VALUE;
+
+    private final long start;
+    private final long end;
+
+    // Khi cấp tới giá trị này thì bắt đầu lease trước segment dự phòng
+    private final long prefetchMark;
+
+    // Giá trị đã cấp gần nhất (start - 1 khi chưa cấp số nào)
+    private final AtomicLong cursor;
+
+    // Version của lần lease đoạn này trên store (IdRange.version)
+    private final long version;
+
+    public Segment(long start, long end) {
+        this(start, end, 1.0);
+    }
+
+    public Segment(long start, long end, double prefetchRatio) {
+        this(start, end, prefetchRatio, IdRange.NO_VERSION);
+    }
+
+    /**
+     * @param prefetchRatio tỉ lệ đã cấp (0..1) mà từ đó nên lease trước segment tiếp theo
+     * @param version       version của lần lease trên store, để trả lại phần chưa cấp
+     */
+    public Segment(long start, long end, double prefetchRatio, long version) {
+        if (end < start) {
+            throw new IllegalArgumentException("Invalid segment [" + start + ".." + end + "]");
+        }
+        this.start = start;
+        this.end = end;
+        this.cursor = new AtomicLong(start - 1);
+        this.version = version;
+        long size = end - start + 1;
+        this.prefetchMark = start - 1 + Math.max(1, Math.min(size, (long) Math.ceil(size * prefetchRatio)));
+    }
+
+    /**
+     * Cấp giá trị tiếp theo trong đoạn
+     *
+     * @return giá trị tiếp theo, hoặc {@link #EXHAUSTED} nếu đoạn đã hết
+     */
+    public long next() {
+        long value = cursor.incrementAndGet();
+        return value <= end ? value : EXHAUSTED;
+    }
+
+    /**
+     * Cấp một lúc tối đa maxCount giá trị liên tiếp trong đoạn
+     *
+     * @return dải đã cấp (có thể ít hơn maxCount), hoặc null nếu đoạn đã hết
+     */
+    public IdRange claim(long maxCount) {
+        while (true) {
+            long last = cursor.get();
+            if (last >= end) {
+                return null;
+            }
+            long claimed = Math.min(maxCount, end - last);
+            if (cursor.compareAndSet(last, last + claimed)) {
+                return new IdRange(last + 1, last + claimed);
+            }
+        }
+    }
+
+    /**
+     * Lấy hết phần chưa cấp (khi đóng buffer), kèm version của lần lease để trả lại cho store
+     *
+     * @return null nếu đoạn đã hết
+     */
+    public IdRange claimRest() {
+        IdRange rest = claim(Long.MAX_VALUE);
+        return rest != null ? new IdRange(rest.start(), rest.end(), version) : null;
+    }
+
+    /**
+     * Giá trị vừa cấp đã vượt ngưỡng prefetch hay chưa
+     */
+    public boolean isPrefetchDue(long issuedValue) {
+        return issuedValue >= prefetchMark;
+    }
+
+    /**
+     * Giá trị đã cấp gần nhất trong đoạn
+     */
+    public long lastIssued() {
+        return Math.min(cursor.get(), end);
+    }
+
+    public long remaining() {
+        return Math.max(0, end - cursor.get());
+    }
+
+    public long size() {
+        return end - start + 1;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public String toString() {
+        return "Segment[" + start + ".." + end + ", lastIssued=" + lastIssued() + "]";
+    }
+}
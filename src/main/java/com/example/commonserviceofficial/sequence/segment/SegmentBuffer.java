@@ -0,0 +1,185 @@
+package com.example.commonserviceofficial.sequence.segment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Double buffer segment của một keyname: segment đang dùng và segment dự phòng
+ * được lease trước ở background.
+ *
+ * Mọi chuyển đổi đều bằng compare-and-set, thread request không bao giờ giữ lock.
+ */
+public final class SegmentBuffer {
+
+    // Segment đang dùng của buffer đã đóng: luôn hết số
+    private static final Segment CLOSED = new Segment(0, 0);
+
+    static {
+        CLOSED.claim(1);
+    }
+
+    private final String keyName;
+
+    private final SegmentSizer sizer;
+
+    // Epoch của key khi tạo buffer (KeyEpochWatcher), phần chưa cấp chỉ được trả lại khi epoch chưa đổi
+    private final long epoch;
+
+    private final AtomicReference<Segment> current = new AtomicReference<>();
+
+    // Segment dự phòng (đang lease hoặc đã lease xong), null nếu chưa bắt đầu
+    private final AtomicReference<CompletableFuture<Segment>> standby = new AtomicReference<>();
+
+    private volatile boolean closed;
+
+    // Trước thời điểm này (System.currentTimeMillis) không cần đọc free list của key trên store
+    private volatile long freeListCheckAt;
+
+    // Lần ghi journal của segment đang dùng (LeaseJournal.recordLease), -1 nếu chưa ghi
+    private volatile long journalLease = -1;
+
+    public SegmentBuffer(String keyName, SegmentSizer sizer) {
+        this(keyName, sizer, 0L);
+    }
+
+    public SegmentBuffer(String keyName, SegmentSizer sizer, long epoch) {
+        this.keyName = keyName;
+        this.sizer = sizer;
+        this.epoch = epoch;
+    }
+
+    public String getKeyName() {
+        return keyName;
+    }
+
+    public SegmentSizer getSizer() {
+        return sizer;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public Segment getCurrent() {
+        return current.get();
+    }
+
+    public CompletableFuture<Segment> getStandby() {
+        return standby.get();
+    }
+
+    /**
+     * Lấy segment dự phòng, nếu chưa có thì bắt đầu lease bằng loader.
+     * Nhiều thread gọi cùng lúc chỉ tạo một lần lease.
+     */
+    public CompletableFuture<Segment> standby(Supplier<CompletableFuture<Segment>> loader) {
+        CompletableFuture<Segment> placeholder = null;
+        while (true) {
+            CompletableFuture<Segment> existing = standby.get();
+            if (existing != null) {
+                return existing;
+            }
+            if (placeholder == null) {
+                placeholder = new CompletableFuture<>();
+            }
+            if (standby.compareAndSet(null, placeholder)) {
+                break;
+            }
+        }
+
+        CompletableFuture<Segment> installed = placeholder;
+
+        loader.get().whenComplete((segment, error) -> {
+            if (error != null) {
+                // Cho phép lần sau lease lại
+                standby.compareAndSet(installed, null);
+                installed.completeExceptionally(error);
+            } else {
+                installed.complete(segment);
+            }
+        });
+        return installed;
+    }
+
+    /**
+     * Chuyển segment dự phòng thành segment đang dùng.
+     *
+     * @param exhausted segment vừa dùng hết (null khi key chưa có segment nào)
+     * @param future    future của segment dự phòng đã lấy từ {@link #standby(Supplier)}
+     * @param next      kết quả của future
+     * @return true nếu thread này thực hiện swap, false nếu thread khác đã swap trước
+     */
+    public boolean swap(Segment exhausted, CompletableFuture<Segment> future, Segment next) {
+        if (next == exhausted) {
+            // Future cũ chưa kịp dọn, bỏ đi để lần sau lease segment mới
+            standby.compareAndSet(future, null);
+            return false;
+        }
+        if (current.compareAndSet(exhausted, next)) {
+            standby.compareAndSet(future, null);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Đã tới lúc lấy đoạn từ free list trên store hay chưa
+     */
+    public boolean isFreeListDue(long nowMillis) {
+        return nowMillis >= freeListCheckAt;
+    }
+
+    /**
+     * Free list vừa đọc thấy trống, bỏ qua cho tới nowMillis + recheckMillis
+     */
+    public void freeListEmpty(long nowMillis, long recheckMillis) {
+        freeListCheckAt = nowMillis + recheckMillis;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public long getJournalLease() {
+        return journalLease;
+    }
+
+    public void setJournalLease(long journalLease) {
+        this.journalLease = journalLease;
+    }
+
+    /**
+     * Đóng buffer khi key bị loại khỏi cache: thread đang giữ buffer không cấp thêm được số nào
+     * (swap sau đó đều thất bại). Phần chưa cấp của segment dự phòng rồi của segment đang dùng
+     * được giao cho unused, đoạn cao hơn trước để đoạn thấp hơn có thể nối vào khi trả lại.
+     */
+    public void close(Consumer<IdRange> unused) {
+        closed = true;
+        Segment segment = current.getAndSet(CLOSED);
+        CompletableFuture<Segment> pending = standby.getAndSet(null);
+        // claim lấy hết phần còn lại một cách nguyên tử, không tranh với next() của thread khác
+        IdRange rest = segment != null ? segment.claimRest() : null;
+
+        CompletableFuture<Segment> next = pending != null ? pending : CompletableFuture.completedFuture(null);
+        next.whenComplete((standbySegment, error) -> {
+            if (error == null && standbySegment != null && standbySegment != segment) {
+                IdRange standbyRest = standbySegment.claimRest();
+                if (standbyRest != null) {
+                    unused.accept(standbyRest);
+                }
+            }
+            if (rest != null) {
+                unused.accept(rest);
+            }
+        });
+    }
+
+    /**
+     * Bỏ segment dự phòng đã lỗi để lần sau lease lại
+     */
+    public void discardStandby(CompletableFuture<Segment> future) {
+        standby.compareAndSet(future, null);
+    }
+}
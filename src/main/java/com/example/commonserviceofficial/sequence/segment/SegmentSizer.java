@@ -0,0 +1,69 @@
+package com.example.commonserviceofficial.sequence.segment;
+
+/**
+ * Tính kích thước segment tiếp theo của một key theo tốc độ cấp phát quan sát được.
+ *
+ * Tốc độ (số/giây) được làm mượt bằng EWMA, mỗi mẫu là kích thước segment trước chia cho
+ * thời gian giữa hai lần lease. Kích thước mới = tốc độ * thời gian mục tiêu của một segment,
+ * giới hạn trong [minStep..maxStep]: key nóng ít phải lease, key nguội ít lãng phí số khi restart.
+ *
+ * Chỉ được gọi trên đường lease (không phải hot path).
+ */
+public final class SegmentSizer {
+
+    private final long minStep;
+    private final long maxStep;
+    private final long targetDurationNanos;
+    private final double alpha;
+
+    private long step;
+    private long lastLeaseNanos = -1;
+    private double rate = -1;
+
+    /**
+     * @param initialStep      kích thước segment đầu tiên
+     * @param minStep          kích thước nhỏ nhất
+     * @param maxStep          kích thước lớn nhất
+     * @param targetDurationMs thời gian mong muốn để dùng hết một segment
+     * @param alpha            hệ số EWMA (0..1], càng lớn càng phản ứng nhanh
+     */
+    public SegmentSizer(long initialStep, long minStep, long maxStep, long targetDurationMs, double alpha) {
+        if (minStep < 1 || maxStep < minStep) {
+            throw new IllegalArgumentException("Invalid segment step bounds [" + minStep + ".." + maxStep + "]");
+        }
+        this.minStep = minStep;
+        this.maxStep = maxStep;
+        this.targetDurationNanos = targetDurationMs * 1_000_000L;
+        this.alpha = alpha;
+        this.step = clamp(initialStep);
+    }
+
+    /**
+     * Ghi nhận một lần lease và trả về kích thước cho lần lease này
+     */
+    public synchronized long nextStep(long nowNanos) {
+        if (lastLeaseNanos >= 0) {
+            long elapsed = Math.max(1, nowNanos - lastLeaseNanos);
+            double sample = step * 1_000_000_000d / elapsed;
+            rate = rate < 0 ? sample : alpha * sample + (1 - alpha) * rate;
+            step = clamp((long) Math.ceil(rate * targetDurationNanos / 1_000_000_000d));
+        }
+        lastLeaseNanos = nowNanos;
+        return step;
+    }
+
+    /**
+     * Tốc độ cấp phát đã làm mượt (số/giây), -1 khi chưa đủ dữ liệu
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    public synchronized long getStep() {
+        return step;
+    }
+
+    private long clamp(long value) {
+        return Math.max(minStep, Math.min(maxStep, value));
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.commonserviceofficial.sequence.service;
+
+/**
+ * Thống kê cache trạng thái local (counter mode CACHED và segment) của các key
+ *
+ * @param size           số key đang giữ trong memory (ước lượng)
+ * @param hits           số lần cấp số tìm thấy trạng thái của key trong cache
+ * @param misses         số lần phải tạo lại trạng thái (đọc / lease từ store)
+ * @param evictions      số key bị loại do vượt giới hạn hoặc không dùng
+ * @param returnedRanges số đoạn chưa cấp đã trả lại store khi loại key
+ * @param returnedValues tổng số giá trị đã trả lại store
+ */
+public record KeyCacheStats(long size, long hits, long misses, long evictions,
+                            long returnedRanges, long returnedValues) {
+
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.commonserviceofficial.sequence.service;
+
+import java.util.List;
+
+/**
+ * Một trang sequence key
+ *
+ * @param keys       các key trong trang (đã sắp xếp)
+ * @param totalCount tổng số key khớp điều kiện lọc
+ */
+public record KeyPage(List<String> keys, int totalCount) {
+}
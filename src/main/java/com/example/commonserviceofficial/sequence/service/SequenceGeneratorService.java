@@ -1,81 +1,277 @@
 package com.example.commonserviceofficial.sequence.service;
 
+import com.example.commonserviceofficial.sequence.SequenceValidationException;
+import com.example.commonserviceofficial.sequence.config.SequenceProperties;
+import com.example.commonserviceofficial.sequence.epoch.KeyEpochWatcher;
+import com.example.commonserviceofficial.sequence.format.FormattedSequence;
+import com.example.commonserviceofficial.sequence.format.NumberTemplate;
+import com.example.commonserviceofficial.sequence.journal.LeaseJournal;
+import com.example.commonserviceofficial.sequence.metrics.SequenceMetrics;
+import com.example.commonserviceofficial.sequence.mirror.SequenceMirror;
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import com.example.commonserviceofficial.sequence.segment.Segment;
+import com.example.commonserviceofficial.sequence.segment.SegmentBuffer;
+import com.example.commonserviceofficial.sequence.segment.SegmentSizer;
+import com.example.commonserviceofficial.sequence.snowflake.SnowflakeIdGenerator;
+import com.example.commonserviceofficial.sequence.snowflake.WorkerIdRegistry;
+import com.example.commonserviceofficial.sequence.store.SequenceStore;
+import com.example.commonserviceofficial.sequence.strict.StrictSequencer;
+import com.example.commonserviceofficial.sequence.striped.Stripes;
+import com.example.commonserviceofficial.sequence.store.StoreStatus;
+import com.example.commonserviceofficial.sequence.store.StoreUnavailableException;
+import com.example.commonserviceofficial.sequence.store.ZooKeeperKeyLayout;
+import com.example.commonserviceofficial.sequence.store.ZooKeeperSequenceStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
-import org.apache.curator.framework.CuratorFrameworkFactory;
-import org.apache.curator.retry.ExponentialBackoffRetry;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
- * Service để generate số sequence duy nhất sử dụng ZooKeeper và AtomicLong
+ * Service để generate số sequence duy nhất sử dụng {@link SequenceStore} và AtomicLong
  * Mỗi keyname sẽ có một counter riêng biệt
+ *
+ * Ở chế độ SEGMENT, store lưu giá trị lớn nhất đã được lease (high-water mark),
+ * mỗi node lease một đoạn nguyên tử trên store rồi cấp phát từ memory. Chế độ STRIPED dùng
+ * cùng cơ chế trên các counter con {key}#{i} ({@link Stripes}).
+ *
+ * Invalidation, mirror và snowflake cần ZooKeeper nên chỉ chạy khi có bean CuratorFramework
+ * (sequence.store.type = zookeeper).
+ *
+ * Khi store mất kết nối (degraded), các key vẫn được cấp từ đoạn đang giữ; không lease thêm,
+ * hết số thì báo {@link StoreUnavailableException} ngay thay vì chờ retry.
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class SequenceGeneratorService {
 
-    @Value("${zookeeper.connection-string:localhost:2181}")
-    private String zookeeperConnectionString;
+    private final SequenceProperties sequenceProperties;
 
-    @Value("${zookeeper.session-timeout:60000}")
-    private int sessionTimeout;
+    private final SequenceStore sequenceStore;
 
-    @Value("${zookeeper.connection-timeout:15000}")
-    private int connectionTimeout;
+    private final ObjectProvider<CuratorFramework> curatorFrameworkProvider;
 
-    @Value("${sequence.zookeeper.base-path:/sequences}")
-    private String basePath;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    // Metrics cấp số / refill / store (no-op khi không có MeterRegistry)
+    private SequenceMetrics metrics;
 
+    // null khi store không phải ZooKeeper
     private CuratorFramework curatorFramework;
+
+    private String basePath;
+
+    // Bản sao in-memory của các key (null nếu sequence.mirror.enabled = false)
+    private SequenceMirror sequenceMirror;
+
+    // Watch epoch của các key để hủy cache khi node khác reset / delete
+    private KeyEpochWatcher keyEpochWatcher;
+
+    // Journal local của đoạn số đang giữ (null nếu sequence.journal.enabled = false)
+    private LeaseJournal leaseJournal;
+
+    // Chỉ khởi tạo khi có key dùng chế độ STRICT
+    private StrictSequencer strictSequencer;
+    private ExecutorService strictExecutor;
+
+    // Chỉ khởi tạo khi có key dùng chế độ SNOWFLAKE
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+    private WorkerIdRegistry workerIdRegistry;
+
+    // Thread pool lease segment dự phòng, không chạy trên thread request
+    private ExecutorService prefetchExecutor;
+
+    // Thread pool đọc / ghi counter mode CACHED cho request không block (riêng với prefetch)
+    private ExecutorService syncExecutor;
     
-    // Cache các AtomicLong cho từng keyname
-    private final ConcurrentHashMap<String, AtomicLong> sequenceCounters = new ConcurrentHashMap<>();
+    // Cache các AtomicLong cho từng keyname (giới hạn theo sequence.cache)
+    private Cache<String, AtomicLong> sequenceCounters;
     
-    // Cache giá trị hiện tại từ ZooKeeper
-    private final ConcurrentHashMap<String, Long> zookeeperValues = new ConcurrentHashMap<>();
+    // Gộp các lần đọc store đồng thời khi khởi tạo counter cho cùng key
+    private final SingleFlight<String, AtomicLong> counterLoader = new SingleFlight<>();
+
+    // Giá trị đã đồng bộ lên store gần nhất
+    private Cache<String, Long> storedValues;
+
+    // Segment đang dùng cho từng keyname (chế độ SEGMENT)
+    private Cache<String, SegmentBuffer> segmentBuffers;
+
+    // Số đoạn / số giá trị đã trả lại store khi loại key khỏi cache
+    private final LongAdder returnedRanges = new LongAdder();
+    private final LongAdder returnedValues = new LongAdder();
+
+    // Mẫu số định dạng đã biên dịch của các key có sequence.keys.{key}.format
+    private final ConcurrentHashMap<String, NumberTemplate> numberTemplates = new ConcurrentHashMap<>();
+
+    // Stripe của các key STRIPED
+    private final ConcurrentHashMap<String, Stripes> keyStripes = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() {
+        basePath = sequenceProperties.getZookeeper().getBasePath();
+        curatorFramework = curatorFrameworkProvider.getIfAvailable();
+        metrics = SequenceMetrics.of(meterRegistryProvider.getIfAvailable(), sequenceStore.name(),
+                sequenceProperties.getMetrics());
+        metrics.monitorStore(sequenceStore::status);
+
         try {
-            // Khởi tạo Curator Framework
-            curatorFramework = CuratorFrameworkFactory.builder()
-                    .connectString(zookeeperConnectionString)
-                    .sessionTimeoutMs(sessionTimeout)
-                    .connectionTimeoutMs(connectionTimeout)
-                    .retryPolicy(new ExponentialBackoffRetry(1000, 3))
-                    .build();
-
-            curatorFramework.start();
-            
-            // Đợi kết nối
-            curatorFramework.blockUntilConnected();
-            
-            // Tạo base path nếu chưa tồn tại
-            if (curatorFramework.checkExists().forPath(basePath) == null) {
-                curatorFramework.create()
-                        .creatingParentsIfNeeded()
-                        .forPath(basePath);
+            AtomicInteger threadIndex = new AtomicInteger();
+            prefetchExecutor = Executors.newFixedThreadPool(
+                    sequenceProperties.getSegment().getPrefetchThreads(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "sequence-prefetch-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            AtomicInteger syncThreadIndex = new AtomicInteger();
+            syncExecutor = Executors.newFixedThreadPool(
+                    sequenceProperties.getZookeeper().getSyncThreads(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "sequence-sync-" + syncThreadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            buildKeyCaches();
+            metrics.monitorCache("sequence.counters", sequenceCounters);
+            metrics.monitorCache("sequence.segments", segmentBuffers);
+            metrics.cacheHitRatio(() -> getKeyCacheStats().hitRatio());
+
+            if (sequenceProperties.getJournal().isEnabled()) {
+                SequenceProperties.Journal journal = sequenceProperties.getJournal();
+                leaseJournal = new LeaseJournal(Paths.get(journal.getPath()), journal.getMaxKeys(),
+                        journal.getCheckpointInterval(), journal.isFsync());
+                leaseJournal.open();
+            }
+
+            sequenceProperties.getKeys().forEach((keyName, keyConfig) -> {
+                if (keyConfig.getFormat() != null) {
+                    // Số chứng từ phải duy nhất: cached chỉ đồng bộ định kỳ, hai node có thể cấp trùng
+                    if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.CACHED) {
+                        throw new IllegalStateException("Formatted key '" + keyName + "' uses cached mode and can"
+                                + " issue duplicate numbers across nodes, set sequence.keys." + keyName
+                                + ".mode to segment or strict");
+                    }
+                    ZoneId zone = keyConfig.getZone() != null ? ZoneId.of(keyConfig.getZone()) : ZoneId.systemDefault();
+                    numberTemplates.put(keyName, new NumberTemplate(keyName, keyConfig.getFormat(),
+                            keyConfig.getRollover(), zone, this::invalidateLocal));
+                }
+            });
+
+            if (curatorFramework == null) {
+                if (sequenceProperties.isModeUsed(SequenceProperties.Mode.SNOWFLAKE)) {
+                    throw new IllegalStateException("Snowflake mode requires the ZooKeeper sequence store");
+                }
+                if (sequenceProperties.isModeUsed(SequenceProperties.Mode.STRICT)) {
+                    throw new IllegalStateException("Strict mode requires the ZooKeeper sequence store");
+                }
+                if (sequenceProperties.getMirror().isEnabled()) {
+                    log.warn("Sequence mirror requires the ZooKeeper sequence store, disabled");
+                }
+                log.info("Sequence generator initialized with {} store (no cross-node invalidation)",
+                        sequenceStore.name());
+                return;
+            }
+
+            if (sequenceProperties.getInvalidation().isEnabled()) {
+                keyEpochWatcher = new KeyEpochWatcher(curatorFramework,
+                        basePath + "/" + sequenceProperties.getInvalidation().getEpochPath(), this::invalidateLocal);
+                keyEpochWatcher.start();
+            }
+
+            if (sequenceProperties.getMirror().isEnabled()) {
+                ZooKeeperKeyLayout layout = sequenceStore instanceof ZooKeeperSequenceStore zooKeeperStore
+                        ? zooKeeperStore.getLayout()
+                        : new ZooKeeperKeyLayout(basePath, sequenceProperties.getZookeeper().getBuckets());
+                sequenceMirror = new SequenceMirror(curatorFramework, layout);
+                sequenceMirror.start();
+            }
+
+            if (sequenceProperties.isModeUsed(SequenceProperties.Mode.SNOWFLAKE)) {
+                SequenceProperties.Snowflake snowflake = sequenceProperties.getSnowflake();
+                snowflakeIdGenerator = new SnowflakeIdGenerator(snowflake.getEpochMillis(), snowflake.getMaxBackwardMs());
+                workerIdRegistry = new WorkerIdRegistry(curatorFramework,
+                        basePath + "/" + snowflake.getWorkerPath(), snowflakeIdGenerator);
+                workerIdRegistry.start();
+            }
+
+            if (sequenceProperties.isModeUsed(SequenceProperties.Mode.STRICT)) {
+                SequenceProperties.Strict strict = sequenceProperties.getStrict();
+                AtomicInteger strictThreadIndex = new AtomicInteger();
+                strictExecutor = Executors.newFixedThreadPool(strict.getCommitThreads(), runnable -> {
+                    Thread thread = new Thread(runnable, "sequence-strict-" + strictThreadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                strictSequencer = new StrictSequencer(curatorFramework, basePath + "/" + strict.getPath(),
+                        strict.getReservationTimeoutMs(), strict.getMaxPending(), strict.getMaxCommitRetries(),
+                        strictExecutor, metrics);
             }
             
-            log.info("ZooKeeper Sequence Generator initialized successfully. Connection: {}", zookeeperConnectionString);
-            
+            log.info("Sequence generator initialized with {} store", sequenceStore.name());
+
         } catch (Exception e) {
-            log.error("Failed to initialize ZooKeeper connection", e);
-            throw new RuntimeException("Cannot initialize ZooKeeper sequence generator", e);
+            log.error("Failed to initialize sequence generator", e);
+            throw new RuntimeException("Cannot initialize sequence generator", e);
         }
     }
 
     @PreDestroy
     public void destroy() {
-        if (curatorFramework != null) {
-            curatorFramework.close();
-            log.info("ZooKeeper connection closed");
+        returnUnusedOnShutdown();
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+        if (syncExecutor != null) {
+            syncExecutor.shutdownNow();
+        }
+        if (strictExecutor != null) {
+            strictExecutor.shutdown();
+        }
+        if (workerIdRegistry != null) {
+            workerIdRegistry.close();
+        }
+        if (sequenceMirror != null) {
+            sequenceMirror.close();
+        }
+        if (keyEpochWatcher != null) {
+            keyEpochWatcher.close();
+        }
+        if (leaseJournal != null) {
+            try {
+                leaseJournal.close();
+            } catch (Exception e) {
+                log.warn("Failed to close sequence journal", e);
+            }
         }
     }
 
@@ -87,33 +283,1079 @@ public class SequenceGeneratorService {
      */
     public long generateNext(String keyName) {
         if (keyName == null || keyName.trim().isEmpty()) {
-            throw new IllegalArgumentException("KeyName cannot be null or empty");
+            throw new SequenceValidationException("KeyName cannot be null or empty");
+        }
+
+        switch (sequenceProperties.modeOf(keyName)) {
+            case SEGMENT:
+                return generateNextFromSegment(keyName);
+            case SNOWFLAKE:
+                return generateSnowflakeId(keyName);
+            case STRICT:
+                return await(keyName, generateNextAsync(keyName));
+            case STRIPED:
+                return generateStriped(keyName);
+            default:
+                break;
         }
 
         try {
             // Lấy hoặc tạo AtomicLong cho keyname này
-            AtomicLong counter = sequenceCounters.computeIfAbsent(keyName, k -> {
-                long currentValue = getCurrentValueFromZooKeeper(k);
-                return new AtomicLong(currentValue);
-            });
+            AtomicLong counter = counterFor(keyName);
+            long nextValue = issueCached(keyName, counter);
 
-            // Tăng giá trị local
-            long nextValue = counter.incrementAndGet();
-            
-            // Đồng bộ với ZooKeeper mỗi 10 lần hoặc khi cần thiết
-            if (nextValue % 10 == 0 || shouldSyncWithZooKeeper(keyName, nextValue)) {
-                syncWithZooKeeper(keyName, nextValue);
+            // Đồng bộ với store mỗi sync-interval lần hoặc khi cần thiết
+            if (isSyncDue(keyName, nextValue)) {
+                syncWithStore(keyName, nextValue);
             }
-
-            log.debug("Generated sequence for key '{}': {}", keyName, nextValue);
             return nextValue;
 
+        } catch (StoreUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to generate sequence for key: {}", keyName, e);
+            throw new RuntimeException("Cannot generate sequence for key: " + keyName, e);
+        }
+    }
+
+    /**
+     * Generate số sequence tiếp theo mà không block thread gọi (dùng cho WebFlux event loop).
+     * Ở trạng thái ổn định (segment còn số) future đã hoàn thành ngay khi trả về.
+     *
+     * @param keyName tên key để phân biệt các sequence khác nhau
+     * @return future của số sequence tiếp theo
+     */
+    public CompletableFuture<Long> generateNextAsync(String keyName) {
+        if (keyName == null || keyName.trim().isEmpty()) {
+            return CompletableFuture.failedFuture(new SequenceValidationException("KeyName cannot be null or empty"));
+        }
+
+        switch (sequenceProperties.modeOf(keyName)) {
+            case SEGMENT:
+                SegmentBuffer buffer = segmentBuffers.get(keyName, this::newSegmentBuffer);
+                return generateNextFromSegmentAsync(buffer).whenComplete((value, error) -> {
+                    if (error != null && !(unwrap(error) instanceof StoreUnavailableException)) {
+                        log.error("Failed to generate sequence for key: {}", keyName, error);
+                    }
+                });
+            case SNOWFLAKE:
+                try {
+                    return CompletableFuture.completedFuture(generateSnowflakeId(keyName));
+                } catch (Exception e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            case STRICT:
+                if (!sequenceStore.isAvailable()) {
+                    return CompletableFuture.failedFuture(storeUnavailable(keyName));
+                }
+                return strictSequencer.next(keyName).thenApply(value -> {
+                    metrics.issued(keyName, 1);
+                    return value;
+                });
+            case STRIPED:
+                return generateStripedAsync(keyName);
+            default:
+                return generateCachedAsync(keyName);
+        }
+    }
+
+    /**
+     * Mode CACHED không block: cấp từ counter trong memory ngay trên thread gọi, chỉ chuyển sang
+     * sync executor khi phải đọc counter từ store (lần đầu) hoặc tới lượt ghi lên store
+     */
+    private CompletableFuture<Long> generateCachedAsync(String keyName) {
+        AtomicLong counter = sequenceCounters.getIfPresent(keyName);
+        if (counter == null) {
+            return CompletableFuture.supplyAsync(() -> generateNext(keyName), syncExecutor);
+        }
+        long nextValue = issueCached(keyName, counter);
+        if (!isSyncDue(keyName, nextValue)) {
+            return CompletableFuture.completedFuture(nextValue);
+        }
+        return CompletableFuture.runAsync(() -> syncWithStore(keyName, nextValue), syncExecutor)
+                .thenApply(ignored -> nextValue);
+    }
+
+    /**
+     * Mode CACHED: tăng counter local
+     */
+    private long issueCached(String keyName, AtomicLong counter) {
+        long nextValue = counter.incrementAndGet();
+        journalIssued(keyName, nextValue);
+        metrics.issued(keyName, 1);
+        log.debug("Generated sequence for key '{}': {}", keyName, nextValue);
+        return nextValue;
+    }
+
+    /**
+     * Mode CACHED: tới lượt ghi counter lên store (mỗi sync-interval lần hoặc lệch quá sync-threshold)
+     */
+    private boolean isSyncDue(String keyName, long value) {
+        return sequenceStore.isAvailable()
+                && (value % sequenceProperties.getZookeeper().getSyncInterval() == 0
+                || shouldSyncWithStore(keyName, value));
+    }
+
+    /**
+     * Cấp số tiếp theo của key có mẫu định dạng, ví dụ INV-2026-10-000123.
+     * Key có rollover được cấp trên key của kỳ hiện tại ({key}@{kỳ}), bắt đầu lại từ 1 mỗi kỳ.
+     *
+     * @param keyName key gốc đã khai báo sequence.keys.{key}.format
+     */
+    public CompletableFuture<FormattedSequence> generateFormattedAsync(String keyName) {
+        NumberTemplate template = keyName != null ? numberTemplates.get(keyName) : null;
+        if (template == null) {
+            return CompletableFuture.failedFuture(
+                    new SequenceValidationException("Key '" + keyName + "' has no format template"));
+        }
+
+        NumberTemplate.Day day = template.day(System.currentTimeMillis());
+        return generateNextAsync(day.periodKey()).thenApply(value ->
+                new FormattedSequence(keyName, day.periodKey(), value, template.format(day, value)));
+    }
+
+    /**
+     * Giữ số tiếp theo của key STRICT, phải {@link #confirmAsync confirm} khi giao dịch thành công
+     * hoặc {@link #releaseAsync release} khi hủy (số được cấp lại cho lần reserve sau)
+     */
+    public CompletableFuture<Long> reserveAsync(String keyName) {
+        return strictOperation(keyName, () -> strictSequencer.reserve(keyName).thenApply(value -> {
+            metrics.issued(keyName, 1);
+            return value;
+        }));
+    }
+
+    /**
+     * Xác nhận số đã reserve, số này không bao giờ được cấp lại
+     */
+    public CompletableFuture<Long> confirmAsync(String keyName, long value) {
+        return strictOperation(keyName, () -> strictSequencer.confirm(keyName, value));
+    }
+
+    /**
+     * Trả lại số đã reserve
+     */
+    public CompletableFuture<Long> releaseAsync(String keyName, long value) {
+        return strictOperation(keyName, () -> strictSequencer.release(keyName, value));
+    }
+
+    private CompletableFuture<Long> strictOperation(String keyName, Supplier<CompletableFuture<Long>> operation) {
+        if (keyName == null || keyName.trim().isEmpty()) {
+            return CompletableFuture.failedFuture(new SequenceValidationException("KeyName cannot be null or empty"));
+        }
+        if (sequenceProperties.modeOf(keyName) != SequenceProperties.Mode.STRICT) {
+            return CompletableFuture.failedFuture(
+                    new SequenceValidationException("Key '" + keyName + "' does not use strict mode"));
+        }
+        if (!sequenceStore.isAvailable()) {
+            return CompletableFuture.failedFuture(storeUnavailable(keyName));
+        }
+        return operation.get();
+    }
+
+    /**
+     * Cấp số của key STRIPED từ stripe node này đang lease. Stripe không lease được (ví dụ
+     * tranh chấp liên tục) thì chuyển sang stripe kế tiếp và thử lại một lần.
+     */
+    private long generateStriped(String keyName) {
+        Stripes stripes = stripesFor(keyName);
+        int stripe = stripes.preferred();
+        try {
+            return stripes.idOf(stripe, generateNextFromSegment(stripes.stripeKey(stripe)));
+        } catch (StoreUnavailableException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            int next = rotateStripe(stripes, stripe);
+            return stripes.idOf(next, generateNextFromSegment(stripes.stripeKey(next)));
+        }
+    }
+
+    private CompletableFuture<Long> generateStripedAsync(String keyName) {
+        Stripes stripes = stripesFor(keyName);
+        int stripe = stripes.preferred();
+        return generateStripeAsync(stripes, stripe).exceptionallyCompose(error -> {
+            if (unwrap(error) instanceof StoreUnavailableException) {
+                return CompletableFuture.failedFuture(error);
+            }
+            return generateStripeAsync(stripes, rotateStripe(stripes, stripe));
+        });
+    }
+
+    private CompletableFuture<Long> generateStripeAsync(Stripes stripes, int stripe) {
+        SegmentBuffer buffer = segmentBuffers.get(stripes.stripeKey(stripe), this::newSegmentBuffer);
+        return generateNextFromSegmentAsync(buffer).thenApply(local -> stripes.idOf(stripe, local));
+    }
+
+    private int rotateStripe(Stripes stripes, int failed) {
+        stripes.rotate(failed);
+        int next = stripes.preferred();
+        log.warn("Stripe {} of key '{}' failed, moving to stripe {}", failed, stripes.getKeyName(), next);
+        return next;
+    }
+
+    private Stripes stripesFor(String keyName) {
+        return keyStripes.computeIfAbsent(keyName, key -> new Stripes(key, sequenceProperties.stripesOf(key)));
+    }
+
+    /**
+     * Số lớn nhất đã được lease trên mọi stripe (đọc song song các counter con)
+     */
+    private CompletableFuture<Long> stripedCurrentValueAsync(String keyName) {
+        if (!sequenceStore.isAvailable()) {
+            return CompletableFuture.failedFuture(storeUnavailable(keyName));
+        }
+        Stripes stripes = stripesFor(keyName);
+        List<CompletableFuture<Long>> values = new ArrayList<>(stripes.getCount());
+        for (int i = 0; i < stripes.getCount(); i++) {
+            String stripeKey = stripes.stripeKey(i);
+            values.add(metrics.storeAsync(SequenceMetrics.Operation.READ, () -> sequenceStore.currentValueAsync(stripeKey)));
+        }
+        return CompletableFuture.allOf(values.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            long max = 0;
+            for (int i = 0; i < values.size(); i++) {
+                long local = values.get(i).join();
+                if (local > 0) {
+                    max = Math.max(max, stripes.idOf(i, local));
+                }
+            }
+            return max;
+        });
+    }
+
+    private static long await(String keyName, CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Cannot generate sequence for key: " + keyName, e.getCause());
+        }
+    }
+
+    /**
+     * Lấy AtomicLong của key (mode CACHED), lần đầu thì đọc từ store.
+     * Các request đồng thời cho cùng key dùng chung một lần đọc, không giữ lock của map khi I/O.
+     */
+    private AtomicLong counterFor(String keyName) throws Exception {
+        AtomicLong counter = sequenceCounters.getIfPresent(keyName);
+        if (counter != null) {
+            return counter;
+        }
+
+        return counterLoader.load(keyName, () -> {
+            AtomicLong loaded = sequenceCounters.asMap().get(keyName);
+            if (loaded != null) {
+                return loaded;
+            }
+            long initial = initialCounterValue(keyName);
+            journalLease(keyName, initial + 1, Long.MAX_VALUE);
+            loaded = new AtomicLong(initial);
+            AtomicLong raced = sequenceCounters.asMap().putIfAbsent(keyName, loaded);
+            return raced != null ? raced : loaded;
+        });
+    }
+
+    /**
+     * Giá trị khởi đầu của counter: max(giá trị trên store, checkpoint trong journal). Store chỉ được
+     * sync định kỳ nên có thể chậm hơn checkpoint, khi đó nâng store lên checkpoint trước khi cấp.
+     * Store lỗi thì lấy checkpoint; không có cả hai thì báo lỗi thay vì bắt đầu lại từ 0 (sẽ cấp trùng).
+     */
+    private long initialCounterValue(String keyName) throws Exception {
+        LeaseJournal.Record record = leaseJournal != null ? leaseJournal.recover(keyName) : null;
+        try {
+            if (!sequenceStore.isAvailable()) {
+                throw storeUnavailable(keyName);
+            }
+            long value = metrics.store(SequenceMetrics.Operation.READ, () -> sequenceStore.currentValue(keyName));
+            if (record != null && record.checkpoint() > value) {
+                log.warn("Journal checkpoint {} of key '{}' is ahead of the store value {}, raising the store",
+                        record.checkpoint(), keyName, value);
+                value = record.checkpoint();
+                Map<String, Long> raise = Map.of(keyName, value);
+                metrics.store(SequenceMetrics.Operation.WRITE, () -> sequenceStore.raiseAll(raise));
+            }
+            storedValues.put(keyName, value);
+            return value;
+        } catch (Exception e) {
+            if (record == null) {
+                throw e;
+            }
+            log.warn("Store unavailable, resuming key '{}' from journal checkpoint {}", keyName, record.checkpoint());
+            return record.checkpoint();
+        }
+    }
+
+    /**
+     * Cấp một lúc count số cho keyname
+     *
+     * @param keyName tên key
+     * @param count   số lượng cần cấp
+     * @return các dải số liên tiếp đã cấp (tổng kích thước = count)
+     */
+    public List<IdRange> generateBatch(String keyName, long count) {
+        if (keyName == null || keyName.trim().isEmpty()) {
+            throw new SequenceValidationException("KeyName cannot be null or empty");
+        }
+        if (count < 1 || count > sequenceProperties.getMaxBatchCount()) {
+            throw new SequenceValidationException("Count must be between 1 and " + sequenceProperties.getMaxBatchCount());
+        }
+        requireCounterMode(keyName);
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRICT) {
+            throw new SequenceValidationException("Key '" + keyName + "' uses strict mode, use reserve / confirm instead");
+        }
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRIPED) {
+            throw new SequenceValidationException("Key '" + keyName + "' uses striped mode, values are not contiguous");
+        }
+
+        try {
+            List<IdRange> ranges = new ArrayList<>(2);
+
+            if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.SEGMENT) {
+                // Lấy phần còn lại của segment đang dùng trước
+                SegmentBuffer buffer = segmentBuffers.get(keyName, this::newSegmentBuffer);
+                Segment segment = buffer.getCurrent();
+                IdRange local = segment != null ? segment.claim(count) : null;
+                if (local != null) {
+                    ranges.add(local);
+                    journalIssued(keyName, local.end());
+                    if (segment.isPrefetchDue(local.end()) && buffer.getStandby() == null) {
+                        prefetchSegment(buffer);
+                    }
+                }
+
+                // Phần thiếu được lease trực tiếp từ store, không qua segment buffer
+                long missing = count - (local != null ? local.size() : 0);
+                if (missing > 0) {
+                    if (!sequenceStore.isAvailable()) {
+                        throw storeUnavailable(keyName);
+                    }
+                    ranges.add(leaseRange(keyName, missing));
+                }
+            } else {
+                AtomicLong counter = counterFor(keyName);
+                long end = counter.addAndGet(count);
+                journalIssued(keyName, end);
+                if (sequenceStore.isAvailable()) {
+                    syncWithStore(keyName, end);
+                }
+                ranges.add(new IdRange(end - count + 1, end));
+            }
+
+            metrics.issued(keyName, count);
+            log.debug("Generated batch of {} for key '{}': {}", count, keyName, ranges);
+            return ranges;
+
+        } catch (StoreUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to generate batch for key: {}", keyName, e);
+            throw new RuntimeException("Cannot generate batch for key: " + keyName, e);
+        }
+    }
+
+    /**
+     * Cấp count số tiếp theo cho stream dài (GET /{keyName}/stream): key SEGMENT / CACHED cấp theo
+     * dải liên tiếp như {@link #generateBatch(String, long)}, key STRIPED / SNOWFLAKE cấp từng số
+     * (không liên tiếp, các số liền nhau được gộp thành một dải)
+     */
+    public List<IdRange> generateChunk(String keyName, long count) {
+        SequenceProperties.Mode mode = keyName != null ? sequenceProperties.modeOf(keyName) : null;
+        if (mode != SequenceProperties.Mode.STRIPED && mode != SequenceProperties.Mode.SNOWFLAKE) {
+            return generateBatch(keyName, count);
+        }
+        if (count < 1 || count > sequenceProperties.getMaxBatchCount()) {
+            throw new SequenceValidationException("Count must be between 1 and " + sequenceProperties.getMaxBatchCount());
+        }
+
+        List<IdRange> ranges = new ArrayList<>();
+        long start = generateNext(keyName);
+        long end = start;
+        for (long i = 1; i < count; i++) {
+            long value = generateNext(keyName);
+            if (value != end + 1) {
+                ranges.add(new IdRange(start, end));
+                start = value;
+            }
+            end = value;
+        }
+        ranges.add(new IdRange(start, end));
+        return ranges;
+    }
+
+    /**
+     * Cấp một số cho mỗi key trong một lần gọi (ví dụ ORDER_ID, INVOICE_NO, PAYMENT_REF khi tạo đơn),
+     * hoặc mọi key đều được cấp số, hoặc ném exception và không số nào được trả về:
+     * <ol>
+     *   <li>Các key SEGMENT / STRIPED đã hết segment được lease chung bằng
+     *       {@link SequenceStore#leaseAll(Map)} (một transaction ZooKeeper), counter CACHED chưa có
+     *       được đọc từ store</li>
+     *   <li>Giữ một số từ segment của từng key SEGMENT / STRIPED, cấp ID SNOWFLAKE. Lỗi ở bước này
+     *       thì các số đã giữ được trả lại store / free list của key</li>
+     *   <li>Tăng counter CACHED trong memory (không lỗi được)</li>
+     * </ol>
+     *
+     * @param keyNames các key khác nhau, không dùng mode STRICT
+     * @return số đã cấp của từng key, cùng thứ tự với keyNames
+     */
+    public Map<String, Long> generateMulti(List<String> keyNames) {
+        if (keyNames == null || keyNames.isEmpty()) {
+            throw new SequenceValidationException("KeyNames cannot be null or empty");
+        }
+        if (keyNames.size() > sequenceProperties.getMaxMultiKeys()) {
+            throw new SequenceValidationException("At most " + sequenceProperties.getMaxMultiKeys() + " keys per request");
+        }
+        Map<String, SegmentBuffer> refills = new LinkedHashMap<>();
+        Set<String> distinct = new HashSet<>();
+        for (String keyName : keyNames) {
+            if (keyName == null || keyName.trim().isEmpty()) {
+                throw new SequenceValidationException("KeyName cannot be null or empty");
+            }
+            if (!distinct.add(keyName)) {
+                throw new SequenceValidationException("Duplicate key '" + keyName + "'");
+            }
+            switch (sequenceProperties.modeOf(keyName)) {
+                case STRICT:
+                    throw new SequenceValidationException("Key '" + keyName + "' uses strict mode, use reserve / confirm instead");
+                case SEGMENT:
+                    addRefill(refills, keyName);
+                    break;
+                case STRIPED:
+                    Stripes stripes = stripesFor(keyName);
+                    addRefill(refills, stripes.stripeKey(stripes.preferred()));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (!refills.isEmpty()) {
+            refillSegments(refills);
+        }
+
+        Map<String, Long> issued = new LinkedHashMap<>();
+        Map<String, AtomicLong> counters = new LinkedHashMap<>();
+        List<Reservation> reservations = new ArrayList<>();
+        try {
+            for (String keyName : keyNames) {
+                switch (sequenceProperties.modeOf(keyName)) {
+                    case SEGMENT:
+                        issued.put(keyName, reserve(keyName, reservations));
+                        break;
+                    case STRIPED:
+                        Stripes stripes = stripesFor(keyName);
+                        int stripe = stripes.preferred();
+                        issued.put(keyName, stripes.idOf(stripe, reserve(stripes.stripeKey(stripe), reservations)));
+                        break;
+                    case SNOWFLAKE:
+                        issued.put(keyName, generateSnowflakeId(keyName));
+                        break;
+                    default:
+                        counters.put(keyName, counterFor(keyName));
+                        break;
+                }
+            }
+        } catch (Exception e) {
+            returnReservations(reservations);
+            log.error("Failed to generate sequences for keys {}, returned {} reserved values",
+                    keyNames, reservations.size(), e);
+            if (e instanceof StoreUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new RuntimeException("Cannot generate sequences for keys: " + keyNames, e);
+        }
+
+        counters.forEach((keyName, counter) -> {
+            long value = issueCached(keyName, counter);
+            if (isSyncDue(keyName, value)) {
+                syncWithStore(keyName, value);
+            }
+            issued.put(keyName, value);
+        });
+
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (String keyName : keyNames) {
+            values.put(keyName, issued.get(keyName));
+        }
+        log.debug("Generated sequences for keys {}: {}", keyNames, values);
+        return values;
+    }
+
+    /**
+     * Số đã giữ từ segment của một key trong {@link #generateMulti}, trả lại nếu key khác lỗi
+     *
+     * @param keyName key của segment (stripe key với mode STRIPED)
+     * @param epoch   epoch của key lúc giữ số
+     */
+    private record Reservation(String keyName, long value, long epoch) {
+    }
+
+    private long reserve(String keyName, List<Reservation> reservations) {
+        long epoch = epochOf(keyName);
+        long value = generateNextFromSegment(keyName);
+        reservations.add(new Reservation(keyName, value, epoch));
+        return value;
+    }
+
+    /**
+     * Trả lại các số đã giữ: gộp các số liên tiếp cùng key và epoch thành một đoạn, mỗi đoạn trả một lần
+     */
+    private void returnReservations(List<Reservation> reservations) {
+        Map<String, List<Reservation>> byKey = new LinkedHashMap<>();
+        for (Reservation reservation : reservations) {
+            byKey.computeIfAbsent(reservation.keyName(), k -> new ArrayList<>()).add(reservation);
+        }
+        byKey.forEach((keyName, reserved) -> {
+            reserved.sort(Comparator.comparingLong(Reservation::epoch).thenComparingLong(Reservation::value));
+            Reservation first = reserved.get(0);
+            long end = first.value();
+            for (Reservation next : reserved.subList(1, reserved.size())) {
+                if (next.epoch() == first.epoch() && next.value() == end + 1) {
+                    end = next.value();
+                    continue;
+                }
+                returnToStore(keyName, new IdRange(first.value(), end), first.epoch());
+                first = next;
+                end = next.value();
+            }
+            returnToStore(keyName, new IdRange(first.value(), end), first.epoch());
+        });
+    }
+
+    /**
+     * Thêm buffer của key vào danh sách cần lease nếu segment đang dùng đã hết và chưa có
+     * segment dự phòng (đang lease hoặc đã lease xong)
+     */
+    private void addRefill(Map<String, SegmentBuffer> refills, String keyName) {
+        SegmentBuffer buffer = segmentBuffers.get(keyName, this::newSegmentBuffer);
+        Segment segment = buffer.getCurrent();
+        CompletableFuture<Segment> standby = buffer.getStandby();
+        if ((segment == null || segment.remaining() == 0)
+                && (standby == null || standby.isCompletedExceptionally())) {
+            refills.put(keyName, buffer);
+        }
+    }
+
+    /**
+     * Lease segment mới cho các buffer trong một lần gọi store rồi chuyển thành segment đang dùng.
+     * Buffer đã có segment dự phòng do thread khác lease trong lúc đó (hoặc vừa bị loại khỏi cache)
+     * thì đoạn vừa lease được trả lại.
+     */
+    private void refillSegments(Map<String, SegmentBuffer> refills) {
+        if (!sequenceStore.isAvailable()) {
+            throw storeUnavailable(refills.keySet().iterator().next());
+        }
+
+        Map<String, Long> steps = new LinkedHashMap<>();
+        long now = System.nanoTime();
+        refills.forEach((keyName, buffer) -> steps.put(keyName, buffer.getSizer().nextStep(now)));
+        Map<String, IdRange> ranges;
+        long startedAt = System.nanoTime();
+        try {
+            ranges = metrics.store(SequenceMetrics.Operation.WRITE, () -> sequenceStore.leaseAll(steps));
+        } catch (Exception e) {
+            metrics.refillFailed(startedAt);
+            log.error("Failed to lease segments for keys: {}", steps.keySet(), e);
+            throw new RuntimeException("Cannot lease segments for keys: " + steps.keySet(), e);
+        }
+
+        ranges.forEach((keyName, range) -> {
+            metrics.refilled(startedAt, range.size(), false);
+            storedValues.put(keyName, range.end());
+            SegmentBuffer buffer = refills.get(keyName);
+            Segment exhausted = buffer.getCurrent();
+            Segment next = new Segment(range.start(), range.end(), prefetchRatio(), range.version());
+            CompletableFuture<Segment> standby = buffer.isClosed()
+                    ? null : buffer.standby(() -> CompletableFuture.completedFuture(next));
+            if (standby == null || standby.getNow(null) != next) {
+                // Đoạn chưa được journal, không đụng tới journal của segment đang dùng
+                returnToStore(keyName, range, buffer.getEpoch());
+                return;
+            }
+            installSegment(buffer, exhausted, standby, next);
+        });
+    }
+
+    /**
+     * Sinh ID Snowflake cho key dùng chế độ SNOWFLAKE
+     */
+    private long generateSnowflakeId(String keyName) {
+        long id = snowflakeIdGenerator.nextId();
+        metrics.issued(keyName, 1);
+        log.debug("Generated snowflake id for key '{}': {}", keyName, id);
+        return id;
+    }
+
+    /**
+     * Key chế độ SNOWFLAKE không có counter nên không hỗ trợ current value / reset / batch
+     */
+    private void requireCounterMode(String keyName) {
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.SNOWFLAKE) {
+            throw new SequenceValidationException("Key '" + keyName + "' uses snowflake mode and has no counter");
+        }
+    }
+
+    /**
+     * Cấp số tiếp theo từ segment đang dùng.
+     * Khi vượt ngưỡng prefetch, segment dự phòng được lease ở background; khi segment
+     * đang dùng hết thì swap sang segment dự phòng bằng CAS, không giữ lock nào.
+     */
+    private long generateNextFromSegment(String keyName) {
+        SegmentBuffer buffer = segmentBuffers.get(keyName, this::newSegmentBuffer);
+
+        try {
+            while (true) {
+                Segment segment = buffer.getCurrent();
+                long value = issueFromSegment(buffer, segment);
+                if (value != Segment.EXHAUSTED) {
+                    return value;
+                }
+                if (buffer.isClosed()) {
+                    // Key vừa bị loại khỏi cache, tiếp tục trên buffer mới
+                    buffer = segmentBuffers.get(keyName, this::newSegmentBuffer);
+                    continue;
+                }
+
+                // Segment hiện tại đã hết: chỉ chờ khi segment dự phòng chưa lease xong
+                CompletableFuture<Segment> standby = prefetchSegment(buffer);
+                Segment next;
+                try {
+                    next = standby.join();
+                } catch (CompletionException e) {
+                    buffer.discardStandby(standby);
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+                installSegment(buffer, segment, standby, next);
+            }
+        } catch (StoreUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to generate sequence for key: {}", keyName, e);
             throw new RuntimeException("Cannot generate sequence for key: " + keyName, e);
         }
     }
 
+    /**
+     * Phiên bản không block của {@link #generateNextFromSegment(String)}: khi phải chờ
+     * segment dự phòng thì nối tiếp vào future thay vì join
+     */
+    private CompletableFuture<Long> generateNextFromSegmentAsync(SegmentBuffer buffer) {
+        Segment segment = buffer.getCurrent();
+        long value = issueFromSegment(buffer, segment);
+        if (value != Segment.EXHAUSTED) {
+            return CompletableFuture.completedFuture(value);
+        }
+        if (buffer.isClosed()) {
+            return generateNextFromSegmentAsync(segmentBuffers.get(buffer.getKeyName(), this::newSegmentBuffer));
+        }
+
+        CompletableFuture<Segment> standby = prefetchSegment(buffer);
+        return standby
+                .whenComplete((next, error) -> {
+                    if (error != null) {
+                        buffer.discardStandby(standby);
+                    }
+                })
+                .thenCompose(next -> {
+                    installSegment(buffer, segment, standby, next);
+                    return generateNextFromSegmentAsync(buffer);
+                });
+    }
+
+    /**
+     * Cấp một số từ segment, kích hoạt prefetch khi vượt ngưỡng
+     *
+     * @return giá trị đã cấp, hoặc {@link Segment#EXHAUSTED} nếu segment null hoặc đã hết
+     */
+    private long issueFromSegment(SegmentBuffer buffer, Segment segment) {
+        if (segment == null) {
+            return Segment.EXHAUSTED;
+        }
+        long value = segment.next();
+        if (value != Segment.EXHAUSTED) {
+            journalIssued(buffer.getKeyName(), value);
+            metrics.issued(buffer.getKeyName(), 1);
+            // Store mất kết nối: tạm dừng prefetch, tiếp tục cấp phần còn lại của segment
+            if (segment.isPrefetchDue(value) && buffer.getStandby() == null && sequenceStore.isAvailable()) {
+                prefetchSegment(buffer);
+            }
+            log.debug("Generated sequence for key '{}': {}", buffer.getKeyName(), value);
+        }
+        return value;
+    }
+
+    /**
+     * Lease segment dự phòng cho key trên prefetch executor (nếu chưa có)
+     */
+    private CompletableFuture<Segment> prefetchSegment(SegmentBuffer buffer) {
+        String keyName = buffer.getKeyName();
+        return buffer.standby(() -> {
+            if (!sequenceStore.isAvailable()) {
+                // Fail fast: không xếp hàng lease trong lúc store mất kết nối
+                Segment recovered = recoverSegment(keyName);
+                return recovered != null
+                        ? CompletableFuture.completedFuture(recovered)
+                        : CompletableFuture.failedFuture(storeUnavailable(keyName));
+            }
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return leaseSegment(buffer, buffer.getSizer().nextStep(System.nanoTime()));
+                } catch (Exception e) {
+                    Segment recovered = recoverSegment(keyName);
+                    if (recovered != null) {
+                        return recovered;
+                    }
+                    log.error("Failed to prefetch segment for key: {}", keyName, e);
+                    throw new CompletionException(e);
+                }
+            }, prefetchExecutor);
+        });
+    }
+
+    private StoreUnavailableException storeUnavailable(String keyName) {
+        StoreStatus.State state = sequenceStore.status().state();
+        return new StoreUnavailableException("Sequence store is " + state
+                + " and no leased range is left for key '" + keyName + "'", state);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Trạng thái kết nối của store (health)
+     */
+    public StoreStatus getStoreStatus() {
+        return sequenceStore.status();
+    }
+
+    /**
+     * Segment mới cho buffer: đoạn nhỏ nhất trong free list của key nếu có (số do node khác trả lại
+     * khi dừng), không thì lease đoạn [current + 1 .. current + step] từ store
+     */
+    private Segment leaseSegment(SegmentBuffer buffer, long step) throws Exception {
+        String keyName = buffer.getKeyName();
+        long now = System.currentTimeMillis();
+        long startedAt = System.nanoTime();
+        try {
+            if (buffer.isFreeListDue(now)) {
+                IdRange free = metrics.store(SequenceMetrics.Operation.WRITE, () -> sequenceStore.takeFreeRange(keyName));
+                if (free != null) {
+                    log.debug("Reusing free range {} for key '{}'", free, keyName);
+                    metrics.refilled(startedAt, free.size(), true);
+                    return new Segment(free.start(), free.end(), prefetchRatio());
+                }
+                buffer.freeListEmpty(now, sequenceProperties.getSegment().getFreeListRecheckMs());
+            }
+            IdRange range = leaseRange(keyName, step);
+            metrics.refilled(startedAt, range.size(), false);
+            return new Segment(range.start(), range.end(), prefetchRatio(), range.version());
+        } catch (Exception e) {
+            metrics.refillFailed(startedAt);
+            throw e;
+        }
+    }
+
+    private IdRange leaseRange(String keyName, long count) throws Exception {
+        IdRange range = metrics.store(SequenceMetrics.Operation.WRITE, () -> sequenceStore.lease(keyName, count));
+        storedValues.put(keyName, range.end());
+        return range;
+    }
+
+    /**
+     * Phần chưa cấp của đoạn đã journal trước khi restart, dùng khi không lease được từ store
+     */
+    private Segment recoverSegment(String keyName) {
+        LeaseJournal.Record record = leaseJournal != null ? leaseJournal.recover(keyName) : null;
+        if (record == null || !record.hasRemaining() || record.end() == Long.MAX_VALUE) {
+            return null;
+        }
+        log.warn("Store unavailable, serving key '{}' from journaled range [{}..{}]",
+                keyName, record.checkpoint() + 1, record.end());
+        return new Segment(record.checkpoint() + 1, record.end(), prefetchRatio());
+    }
+
+    /**
+     * Ghi journal rồi chuyển segment dự phòng thành segment đang dùng. Buffer bị đóng trong lúc đó
+     * (reset / loại khỏi cache) thì xóa lần ghi journal vừa rồi để không che đoạn của buffer mới.
+     */
+    private void installSegment(SegmentBuffer buffer, Segment exhausted, CompletableFuture<Segment> standby,
+                                Segment next) {
+        journalSegment(buffer, exhausted, next);
+        if (!buffer.swap(exhausted, standby, next) && buffer.isClosed()) {
+            clearJournal(buffer.getKeyName(), buffer.getJournalLease());
+        }
+    }
+
+    /**
+     * Ghi đoạn sắp trở thành đoạn đang dùng vào journal, trước khi thread khác có thể cấp từ đoạn đó
+     */
+    private void journalSegment(SegmentBuffer buffer, Segment exhausted, Segment next) {
+        if (next != exhausted && !buffer.isClosed()) {
+            if (exhausted != null && next.getStart() < exhausted.getStart()) {
+                // Đoạn từ free list thấp hơn đoạn cũ: journal chỉ nhận đoạn tăng dần nên ghi lại từ đầu
+                clearJournal(buffer.getKeyName(), buffer.getJournalLease());
+            }
+            long lease = journalLease(buffer.getKeyName(), next.getStart(), next.getEnd());
+            if (lease >= 0) {
+                buffer.setJournalLease(lease);
+            }
+        }
+    }
+
+    private long journalLease(String keyName, long start, long end) {
+        return leaseJournal != null ? leaseJournal.recordLease(keyName, start, end) : -1;
+    }
+
+    private void journalIssued(String keyName, long value) {
+        if (leaseJournal != null) {
+            leaseJournal.issued(keyName, value);
+        }
+    }
+
+    /**
+     * Cache counter / segment / giá trị đã đồng bộ của các key, giới hạn theo số key và thời gian
+     * không dùng để memory không tăng theo số key (ví dụ key theo từng khách hàng chỉ dùng một lần)
+     */
+    private void buildKeyCaches() {
+        SequenceProperties.KeyCache config = sequenceProperties.getCache();
+        sequenceCounters = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumKeys())
+                .expireAfterAccess(config.getIdleTimeoutMs(), TimeUnit.MILLISECONDS)
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .<String, AtomicLong>evictionListener((keyName, counter, cause) -> onCounterEvicted(keyName, counter))
+                .build();
+        segmentBuffers = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumKeys())
+                .expireAfterAccess(config.getIdleTimeoutMs(), TimeUnit.MILLISECONDS)
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .<String, SegmentBuffer>evictionListener((keyName, buffer, cause) -> onSegmentEvicted(keyName, buffer))
+                .build();
+        storedValues = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumKeys())
+                .expireAfterAccess(config.getIdleTimeoutMs(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Mode CACHED: ghi giá trị đã cấp lên store trước khi bỏ counter, lần sau đọc lại không cấp trùng
+     */
+    private void onCounterEvicted(String keyName, AtomicLong counter) {
+        if (keyName == null || counter == null) {
+            return;
+        }
+        clearJournal(keyName);
+        long value = counter.get();
+        syncExecutor.execute(() -> {
+            if (sequenceStore.isAvailable()) {
+                syncWithStore(keyName, value);
+            } else {
+                log.warn("Evicted counter of key '{}' at {} while store is unavailable, not flushed", keyName, value);
+            }
+        });
+    }
+
+    /**
+     * Đóng buffer bị loại (chạy trong lúc loại, trước khi buffer mới của key được tạo)
+     * rồi trả lại phần chưa cấp trên prefetch executor
+     */
+    private void onSegmentEvicted(String keyName, SegmentBuffer buffer) {
+        if (keyName == null || buffer == null) {
+            return;
+        }
+        long lease = buffer.getJournalLease();
+        clearJournal(keyName, lease);
+        boolean returnUnused = sequenceProperties.getCache().isReturnUnused();
+        buffer.close(unused -> {
+            if (returnUnused) {
+                prefetchExecutor.execute(() -> returnUnused(buffer, unused, lease));
+            }
+        });
+    }
+
+    /**
+     * Trả đoạn chưa cấp của một buffer đã đóng rồi xóa lần ghi journal của buffer đó
+     * (chạy muộn trên executor, slot có thể đã thuộc buffer mới của key nên không xóa theo key)
+     */
+    private void returnUnused(SegmentBuffer buffer, IdRange unused, long lease) {
+        if (returnToStore(buffer.getKeyName(), unused, buffer.getEpoch())) {
+            clearJournal(buffer.getKeyName(), lease);
+        }
+    }
+
+    /**
+     * Trả đoạn chưa cấp cho store: đoạn cuối (store chưa bị ghi từ lần lease, theo unused.version)
+     * thì hạ giá trị trên store, không thì đưa vào free list. Key đã bị reset / delete kể từ khi
+     * lease (epoch khác) thì bỏ đoạn, vì free list đã được xóa và số trong đoạn thuộc dãy cũ.
+     *
+     * @param epoch epoch của key lúc lease đoạn (SegmentBuffer.getEpoch)
+     * @return true nếu đã trả lại
+     */
+    private boolean returnToStore(String keyName, IdRange unused, long epoch) {
+        if (!sequenceStore.isAvailable()) {
+            log.debug("Store unavailable, dropping unused range {} of key '{}'", unused, keyName);
+            return false;
+        }
+        if (epochOf(keyName) != epoch) {
+            log.debug("Key '{}' was reset since range {} was leased, dropping it", keyName, unused);
+            return false;
+        }
+        try {
+            if (metrics.store(SequenceMetrics.Operation.WRITE,
+                    () -> sequenceStore.returnRange(keyName, unused) || sequenceStore.addFreeRange(keyName, unused))) {
+                returnedRanges.increment();
+                returnedValues.add(unused.size());
+                log.debug("Returned unused range {} of key '{}'", unused, keyName);
+                return true;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to return unused range {} of key '{}'", unused, keyName, e);
+        }
+        return false;
+    }
+
+    /**
+     * Node dừng: đóng mọi segment buffer và trả phần chưa cấp cho store (đoạn cuối) hoặc free list,
+     * ghi counter mode CACHED lên store. Chạy trước khi đóng Curator (store là dependency của service).
+     */
+    private void returnUnusedOnShutdown() {
+        if (segmentBuffers == null || !sequenceProperties.getSegment().isReturnOnShutdown()) {
+            return;
+        }
+        if (!sequenceStore.isAvailable()) {
+            log.warn("Sequence store is {}, unused ranges are not returned on shutdown", sequenceStore.status().state());
+            return;
+        }
+
+        long rangesBefore = returnedRanges.sum();
+        long valuesBefore = returnedValues.sum();
+        segmentBuffers.asMap().forEach((keyName, buffer) -> {
+            // Segment dự phòng còn đang lease thì bỏ qua (callback chạy sau khi đã dừng)
+            List<IdRange> unused = Collections.synchronizedList(new ArrayList<>(2));
+            buffer.close(unused::add);
+            for (IdRange range : new ArrayList<>(unused)) {
+                returnUnused(buffer, range, buffer.getJournalLease());
+            }
+        });
+        sequenceCounters.asMap().forEach((keyName, counter) -> syncWithStore(keyName, counter.get()));
+
+        log.info("Returned {} unused ranges ({} values) on shutdown",
+                returnedRanges.sum() - rangesBefore, returnedValues.sum() - valuesBefore);
+    }
+
+    /**
+     * Thống kê cache counter / segment của các key
+     */
+    public KeyCacheStats getKeyCacheStats() {
+        CacheStats counters = sequenceCounters.stats();
+        CacheStats segments = segmentBuffers.stats();
+        return new KeyCacheStats(
+                sequenceCounters.estimatedSize() + segmentBuffers.estimatedSize(),
+                counters.hitCount() + segments.hitCount(),
+                counters.missCount() + segments.missCount(),
+                counters.evictionCount() + segments.evictionCount(),
+                returnedRanges.sum(),
+                returnedValues.sum());
+    }
+
+    /**
+     * Chuẩn bị trước trạng thái của key để request đầu tiên không phải chờ store: mode SEGMENT /
+     * STRIPED lease segment đầu tiên (tạo znode nếu chưa có), mode CACHED đọc counter. Key có mẫu
+     * định dạng được chuẩn bị trên key của kỳ hiện tại. Không cấp số nào.
+     *
+     * @return false nếu mode của key không có gì để chuẩn bị (SNOWFLAKE, STRICT)
+     */
+    public boolean warmUp(String keyName) throws Exception {
+        NumberTemplate template = numberTemplates.get(keyName);
+        String target = template != null ? template.day(System.currentTimeMillis()).periodKey() : keyName;
+
+        switch (sequenceProperties.modeOf(target)) {
+            case SEGMENT:
+                warmUpSegment(target);
+                return true;
+            case STRIPED:
+                Stripes stripes = stripesFor(target);
+                warmUpSegment(stripes.stripeKey(stripes.preferred()));
+                return true;
+            case CACHED:
+                counterFor(target);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void warmUpSegment(String keyName) throws Exception {
+        SegmentBuffer buffer = segmentBuffers.get(keyName, this::newSegmentBuffer);
+        if (buffer.getCurrent() != null) {
+            return;
+        }
+        CompletableFuture<Segment> standby = prefetchSegment(buffer);
+        Segment next;
+        try {
+            next = standby.join();
+        } catch (CompletionException e) {
+            buffer.discardStandby(standby);
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        journalSegment(buffer, null, next);
+        buffer.swap(null, standby, next);
+    }
+
+    /**
+     * Các key được dùng nhiều nhất theo tần suất của cache (key gốc, không phải counter con /
+     * key theo kỳ), nhiều nhất trước
+     */
+    public List<String> hottestKeys(int limit) {
+        LinkedHashSet<String> keys = new LinkedHashSet<>();
+        Map<String, ?> segments = segmentBuffers.policy().eviction()
+                .map(eviction -> eviction.hottest(limit)).orElse(Map.of());
+        Map<String, ?> counters = sequenceCounters.policy().eviction()
+                .map(eviction -> eviction.hottest(limit)).orElse(Map.of());
+        for (Map<String, ?> hottest : List.of(segments, counters)) {
+            for (String keyName : hottest.keySet()) {
+                String baseKey = Stripes.baseKeyOf(keyName);
+                if (baseKey.equals(keyName) || sequenceProperties.modeOf(baseKey) != SequenceProperties.Mode.STRIPED) {
+                    baseKey = keyName;
+                }
+                int separator = baseKey.indexOf(SequenceProperties.PERIOD_SEPARATOR);
+                if (separator > 0 && numberTemplates.containsKey(baseKey.substring(0, separator))) {
+                    baseKey = baseKey.substring(0, separator);
+                }
+                keys.add(baseKey);
+            }
+        }
+        return keys.stream().limit(limit).toList();
+    }
+
+    private SegmentBuffer newSegmentBuffer(String keyName) {
+        SequenceProperties.Segment config = sequenceProperties.getSegment();
+        SegmentSizer sizer = config.isAdaptive()
+                ? new SegmentSizer(config.getStep(), config.getMinStep(), config.getMaxStep(),
+                        config.getTargetDurationMs(), config.getRateSmoothing())
+                : new SegmentSizer(config.getStep(), config.getStep(), config.getStep(),
+                        config.getTargetDurationMs(), config.getRateSmoothing());
+        return new SegmentBuffer(keyName, sizer, epochOf(keyName));
+    }
+
+    /**
+     * Epoch hiện tại của key theo KeyEpochWatcher (stripe dùng epoch của key gốc), 0 nếu tắt invalidation
+     */
+    private long epochOf(String keyName) {
+        if (keyEpochWatcher == null) {
+            return 0L;
+        }
+        String baseKey = Stripes.baseKeyOf(keyName);
+        return keyEpochWatcher.epochOf(
+                sequenceProperties.modeOf(baseKey) == SequenceProperties.Mode.STRIPED ? baseKey : keyName);
+    }
+
+    private double prefetchRatio() {
+        return sequenceProperties.getSegment().getPrefetchThreshold();
+    }
+
     /**
      * Lấy giá trị hiện tại của sequence cho keyname
      * 
@@ -122,16 +1364,265 @@ public class SequenceGeneratorService {
      */
     public long getCurrentValue(String keyName) {
         if (keyName == null || keyName.trim().isEmpty()) {
-            throw new IllegalArgumentException("KeyName cannot be null or empty");
+            throw new SequenceValidationException("KeyName cannot be null or empty");
+        }
+        requireCounterMode(keyName);
+
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRICT
+                || sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRIPED) {
+            return await(keyName, getCurrentValueAsync(keyName));
         }
 
-        AtomicLong counter = sequenceCounters.get(keyName);
+        AtomicLong counter = sequenceCounters.asMap().get(keyName);
         if (counter != null) {
             return counter.get();
         }
 
-        // Nếu chưa có trong cache, lấy từ ZooKeeper
-        return getCurrentValueFromZooKeeper(keyName);
+        SegmentBuffer buffer = segmentBuffers.asMap().get(keyName);
+        if (buffer != null && buffer.getCurrent() != null) {
+            return buffer.getCurrent().lastIssued();
+        }
+
+        Long mirrored = mirroredValue(keyName);
+        if (mirrored != null) {
+            return mirrored;
+        }
+
+        // Nếu chưa có trong cache, lấy từ store
+        // (chế độ SEGMENT: đây là giá trị lớn nhất đã được lease trên toàn cluster)
+        return getCurrentValueFromStore(keyName);
+    }
+
+    /**
+     * Lấy giá trị hiện tại mà không block thread gọi: cache local trước,
+     * nếu không có thì đọc từ store
+     *
+     * @param keyName tên key
+     * @return future của giá trị hiện tại (0 nếu key chưa tồn tại)
+     */
+    public CompletableFuture<Long> getCurrentValueAsync(String keyName) {
+        if (keyName == null || keyName.trim().isEmpty()) {
+            return CompletableFuture.failedFuture(new SequenceValidationException("KeyName cannot be null or empty"));
+        }
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.SNOWFLAKE) {
+            return CompletableFuture.failedFuture(
+                    new SequenceValidationException("Key '" + keyName + "' uses snowflake mode and has no counter"));
+        }
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRICT) {
+            // Số lớn nhất đã cấp (kể cả đang reserve), đọc trực tiếp từ ZooKeeper
+            return strictOperation(keyName, () -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return strictSequencer.current(keyName);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, strictExecutor));
+        }
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRIPED) {
+            return stripedCurrentValueAsync(keyName);
+        }
+
+        AtomicLong counter = sequenceCounters.asMap().get(keyName);
+        if (counter != null) {
+            return CompletableFuture.completedFuture(counter.get());
+        }
+
+        SegmentBuffer buffer = segmentBuffers.asMap().get(keyName);
+        if (buffer != null && buffer.getCurrent() != null) {
+            return CompletableFuture.completedFuture(buffer.getCurrent().lastIssued());
+        }
+
+        Long mirrored = mirroredValue(keyName);
+        if (mirrored != null) {
+            return CompletableFuture.completedFuture(mirrored);
+        }
+
+        if (!sequenceStore.isAvailable()) {
+            return CompletableFuture.failedFuture(storeUnavailable(keyName));
+        }
+        return metrics.storeAsync(SequenceMetrics.Operation.READ, () -> sequenceStore.currentValueAsync(keyName))
+                .whenComplete((value, error) -> {
+                    if (error != null) {
+                        log.error("Failed to get current value from store for key: {}", keyName, error);
+                    }
+                });
+    }
+
+    /**
+     * Lấy danh sách tất cả các key mà không block thread gọi
+     */
+    public CompletableFuture<Set<String>> getAllKeysAsync() {
+        if (isMirrorReady()) {
+            return CompletableFuture.completedFuture(collapseStripes(sequenceMirror.entries(null).keySet()));
+        }
+        if (!sequenceStore.isAvailable()) {
+            return CompletableFuture.failedFuture(new StoreUnavailableException(
+                    "Sequence store is " + sequenceStore.status().state(), sequenceStore.status().state()));
+        }
+        return metrics.storeAsync(SequenceMetrics.Operation.READ, sequenceStore::keysAsync)
+                .thenApply(this::collapseStripes);
+    }
+
+    /**
+     * Các key trên store theo tên lưu trữ (gồm counter con của key STRIPED và key theo kỳ)
+     * cùng các key STRICT (trạng thái nằm dưới strict.path), đã sắp xếp, dùng cho export
+     *
+     * @param prefix chỉ lấy key bắt đầu bằng prefix (null = tất cả)
+     */
+    public CompletableFuture<List<String>> getStoredKeysAsync(String prefix) {
+        if (!sequenceStore.isAvailable()) {
+            return CompletableFuture.failedFuture(new StoreUnavailableException(
+                    "Sequence store is " + sequenceStore.status().state(), sequenceStore.status().state()));
+        }
+        CompletableFuture<List<String>> strictKeys = strictSequencer == null
+                ? CompletableFuture.completedFuture(List.of())
+                : CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return strictSequencer.keys();
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, strictExecutor);
+        return metrics.storeAsync(SequenceMetrics.Operation.READ, sequenceStore::keysAsync)
+                .thenCombine(strictKeys, (keys, strict) -> {
+                    Set<String> stored = new HashSet<>();
+                    for (String key : keys) {
+                        if (sequenceProperties.modeOf(key) != SequenceProperties.Mode.STRICT) {
+                            stored.add(key);
+                        }
+                    }
+                    for (String key : strict) {
+                        if (sequenceProperties.modeOf(key) == SequenceProperties.Mode.STRICT) {
+                            stored.add(key);
+                        }
+                    }
+                    return stored.stream()
+                            .filter(key -> prefix == null || key.startsWith(prefix))
+                            .sorted()
+                            .toList();
+                });
+    }
+
+    /**
+     * Giá trị trên store của key theo tên lưu trữ (không qua cache local), dùng cho export.
+     * Key STRICT: số lớn nhất đã cấp.
+     */
+    public CompletableFuture<Long> getStoredValueAsync(String keyName) {
+        if (!sequenceStore.isAvailable()) {
+            return CompletableFuture.failedFuture(storeUnavailable(keyName));
+        }
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRICT) {
+            return getCurrentValueAsync(keyName);
+        }
+        return metrics.storeAsync(SequenceMetrics.Operation.READ, () -> sequenceStore.currentValueAsync(keyName));
+    }
+
+    /**
+     * Nhập giá trị của các key theo tên lưu trữ (restore từ export, chuyển sang ensemble khác):
+     * mỗi key được nâng lên ít nhất giá trị đã cho, không bao giờ giảm, bằng một transaction của
+     * store cho cả lô. Key được nâng bị hủy cache trên mọi node như reset (một transaction epoch).
+     * Key STRICT được nâng số lớn nhất đã cấp, mỗi key một lần ghi riêng sau transaction của lô.
+     *
+     * @return số key đã được nâng
+     */
+    public int importValues(Map<String, Long> values) {
+        if (values == null || values.isEmpty()) {
+            return 0;
+        }
+        values.forEach((keyName, value) -> {
+            if (keyName == null || keyName.trim().isEmpty()) {
+                throw new SequenceValidationException("KeyName cannot be null or empty");
+            }
+            if (keyName.startsWith(ZooKeeperSequenceStore.RESERVED_PREFIX)) {
+                throw new SequenceValidationException("Key '" + keyName + "' uses the reserved prefix "
+                        + ZooKeeperSequenceStore.RESERVED_PREFIX);
+            }
+            if (value == null || value < 0) {
+                throw new SequenceValidationException("Value of key '" + keyName + "' must be non-negative");
+            }
+        });
+        if (!sequenceStore.isAvailable()) {
+            throw storeUnavailable(values.keySet().iterator().next());
+        }
+
+        Map<String, Long> strictValues = new LinkedHashMap<>();
+        Map<String, Long> storeValues = new LinkedHashMap<>();
+        values.forEach((keyName, value) -> (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRICT
+                ? strictValues : storeValues).put(keyName, value));
+
+        try {
+            Set<String> raised = storeValues.isEmpty() ? Set.of()
+                    : metrics.store(SequenceMetrics.Operation.WRITE, () -> sequenceStore.raiseAll(storeValues));
+            Set<String> epochKeys = new LinkedHashSet<>();
+            for (String keyName : raised) {
+                // Cache local dùng tên lưu trữ; epoch của counter con STRIPED nằm ở key gốc
+                clearLocal(keyName);
+                String baseKey = Stripes.baseKeyOf(keyName);
+                epochKeys.add(!baseKey.equals(keyName) && sequenceProperties.modeOf(baseKey) == SequenceProperties.Mode.STRIPED
+                        ? baseKey : keyName);
+            }
+            if (keyEpochWatcher != null && !epochKeys.isEmpty()) {
+                keyEpochWatcher.bumpAll(epochKeys);
+            }
+            int strictRaised = 0;
+            for (Map.Entry<String, Long> entry : strictValues.entrySet()) {
+                strictRaised += (int) await(entry.getKey(), strictSequencer.raise(entry.getKey(), entry.getValue()));
+            }
+            log.info("Imported {} sequence values, raised {} keys", values.size(), raised.size() + strictRaised);
+            return raised.size() + strictRaised;
+        } catch (Exception e) {
+            log.error("Failed to import {} sequence values", values.size(), e);
+            throw new RuntimeException("Cannot import sequence values", e);
+        }
+    }
+
+    /**
+     * Thay các counter con {key}#{i} của key STRIPED bằng key gốc
+     */
+    private Set<String> collapseStripes(Set<String> keys) {
+        if (!sequenceProperties.isModeUsed(SequenceProperties.Mode.STRIPED)) {
+            return keys instanceof HashSet ? keys : new HashSet<>(keys);
+        }
+        Set<String> collapsed = new HashSet<>(keys.size());
+        for (String key : keys) {
+            String baseKey = Stripes.baseKeyOf(key);
+            collapsed.add(!baseKey.equals(key) && sequenceProperties.modeOf(baseKey) == SequenceProperties.Mode.STRIPED
+                    ? baseKey : key);
+        }
+        return collapsed;
+    }
+
+    /**
+     * Lấy một trang key (đã sắp xếp) theo prefix.
+     * Có mirror thì đọc thẳng từ memory, không thì lấy danh sách từ store rồi lọc.
+     *
+     * @param prefix chỉ lấy key bắt đầu bằng prefix (null = tất cả)
+     * @param offset vị trí bắt đầu
+     * @param limit  số key tối đa
+     */
+    public CompletableFuture<KeyPage> listKeysAsync(String prefix, int offset, int limit) {
+        if (isMirrorReady() && !sequenceProperties.isModeUsed(SequenceProperties.Mode.STRIPED)) {
+            return CompletableFuture.completedFuture(new KeyPage(
+                    sequenceMirror.keys(prefix, offset, limit), sequenceMirror.entries(prefix).size()));
+        }
+
+        return getAllKeysAsync().thenApply(keys -> {
+            List<String> matched = keys.stream()
+                    .filter(key -> prefix == null || key.startsWith(prefix))
+                    .sorted()
+                    .toList();
+            int from = Math.min(offset, matched.size());
+            int to = (int) Math.min((long) from + limit, matched.size());
+            return new KeyPage(matched.subList(from, to), matched.size());
+        });
+    }
+
+    private boolean isMirrorReady() {
+        return sequenceMirror != null && sequenceMirror.isInitialized();
+    }
+
+    private Long mirroredValue(String keyName) {
+        return isMirrorReady() ? sequenceMirror.valueOf(keyName) : null;
     }
 
     /**
@@ -142,18 +1633,62 @@ public class SequenceGeneratorService {
      */
     public void resetSequence(String keyName, long value) {
         if (keyName == null || keyName.trim().isEmpty()) {
-            throw new IllegalArgumentException("KeyName cannot be null or empty");
+            throw new SequenceValidationException("KeyName cannot be null or empty");
+        }
+        requireCounterMode(keyName);
+        if (!sequenceStore.isAvailable()) {
+            throw storeUnavailable(keyName);
+        }
+
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRICT) {
+            await(keyName, strictSequencer.reset(keyName, value));
+            log.info("Reset strict sequence for key '{}' to value: {}", keyName, value);
+            return;
         }
 
         try {
-            // Cập nhật local cache
-            sequenceCounters.put(keyName, new AtomicLong(value));
-            
-            // Cập nhật ZooKeeper
-            syncWithZooKeeper(keyName, value);
+            if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRIPED) {
+                // Mọi stripe tiếp tục từ số lớn hơn value trong lớp đồng dư của nó
+                Stripes stripes = stripesFor(keyName);
+                for (int i = 0; i < stripes.getCount(); i++) {
+                    writeValue(stripes.stripeKey(i), stripes.localFloor(value));
+                    sequenceStore.clearFreeRanges(stripes.stripeKey(i));
+                }
+                invalidateLocal(keyName);
+                bumpEpoch(keyName);
+                log.info("Reset striped sequence for key '{}' to value: {}", keyName, value);
+                return;
+            }
+
+            // Số trong free list thuộc dãy cũ
+            sequenceStore.clearFreeRanges(keyName);
+
+            // Ngừng cấp từ trạng thái cũ trước khi ghi store
+            boolean segmentMode = sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.SEGMENT;
+            if (segmentMode) {
+                // Bỏ segment cũ, lần generate tiếp theo sẽ lease từ value + 1
+                discardSegmentBuffer(keyName);
+            } else {
+                clearJournal(keyName);
+                sequenceCounters.invalidate(keyName);
+            }
+
+            // Cập nhật store, lỗi thì báo lỗi (503) thay vì báo reset thành công
+            writeValue(keyName, value);
+
+            if (!segmentMode) {
+                journalLease(keyName, value + 1, Long.MAX_VALUE);
+                sequenceCounters.put(keyName, new AtomicLong(value));
+            }
+
+            // Báo các node khác bỏ counter / segment cũ
+            bumpEpoch(keyName);
             
             log.info("Reset sequence for key '{}' to value: {}", keyName, value);
 
+        } catch (StoreUnavailableException e) {
+            log.error("Failed to reset sequence for key: {}", keyName, e);
+            throw e;
         } catch (Exception e) {
             log.error("Failed to reset sequence for key: {}", keyName, e);
             throw new RuntimeException("Cannot reset sequence for key: " + keyName, e);
@@ -161,79 +1696,141 @@ public class SequenceGeneratorService {
     }
 
     /**
-     * Lấy giá trị hiện tại từ ZooKeeper
+     * Tăng epoch của key để mọi node hủy cache (nếu bật invalidation)
      */
-    private long getCurrentValueFromZooKeeper(String keyName) {
+    private void bumpEpoch(String keyName) throws Exception {
+        if (keyEpochWatcher != null) {
+            long epoch = keyEpochWatcher.bump(keyName);
+            log.debug("Bumped epoch for key '{}' to {}", keyName, epoch);
+        }
+    }
+
+    /**
+     * Bỏ mọi trạng thái cache local của key, lần generate tiếp theo sẽ đọc / lease lại từ store
+     */
+    private void invalidateLocal(String keyName) {
+        if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRIPED) {
+            Stripes stripes = stripesFor(keyName);
+            for (int i = 0; i < stripes.getCount(); i++) {
+                clearLocal(stripes.stripeKey(i));
+            }
+            return;
+        }
+        clearLocal(keyName);
+    }
+
+    private void clearLocal(String keyName) {
+        if (!segmentBuffers.asMap().containsKey(keyName)) {
+            // Key CACHED: xóa journal theo key trước khi bỏ counter, thread còn giữ counter cũ
+            // không ghi được vào slot nữa. Key SEGMENT: xóa theo lần lease của buffer bị đóng
+            clearJournal(keyName);
+        }
+        sequenceCounters.invalidate(keyName);
+        storedValues.invalidate(keyName);
+        discardSegmentBuffer(keyName);
+    }
+
+    /**
+     * Bỏ segment buffer của key khi reset / delete / epoch đổi. invalidate không gọi eviction
+     * listener nên buffer được đóng ở đây: thread đang giữ buffer không cấp thêm số từ đoạn cũ và
+     * segment dự phòng đang lease không được swap vào. Phần chưa cấp bị bỏ (thuộc dãy trước reset).
+     */
+    private void discardSegmentBuffer(String keyName) {
+        segmentBuffers.asMap().computeIfPresent(keyName, (key, buffer) -> {
+            buffer.close(unused -> {
+            });
+            clearJournal(key, buffer.getJournalLease());
+            return null;
+        });
+    }
+
+    private void clearJournal(String keyName) {
+        if (leaseJournal != null) {
+            leaseJournal.clear(keyName);
+        }
+    }
+
+    private void clearJournal(String keyName, long lease) {
+        if (leaseJournal != null) {
+            leaseJournal.clear(keyName, lease);
+        }
+    }
+
+    /**
+     * Lấy giá trị hiện tại từ store
+     */
+    private long getCurrentValueFromStore(String keyName) {
+        if (!sequenceStore.isAvailable()) {
+            throw storeUnavailable(keyName);
+        }
         try {
-            String path = basePath + "/" + keyName;
-            
-            if (curatorFramework.checkExists().forPath(path) == null) {
-                // Tạo node mới với giá trị 0
-                curatorFramework.create()
-                        .creatingParentsIfNeeded()
-                        .forPath(path, "0".getBytes());
-                zookeeperValues.put(keyName, 0L);
-                return 0L;
-            }
-
-            byte[] data = curatorFramework.getData().forPath(path);
-            long value = Long.parseLong(new String(data));
-            zookeeperValues.put(keyName, value);
-            
+            long value = metrics.store(SequenceMetrics.Operation.READ, () -> sequenceStore.currentValue(keyName));
+            storedValues.put(keyName, value);
             return value;
 
         } catch (Exception e) {
-            log.error("Failed to get current value from ZooKeeper for key: {}", keyName, e);
-            return 0L;
+            log.error("Failed to get current value from store for key: {}", keyName, e);
+            throw new RuntimeException("Cannot get current value for key: " + keyName, e);
         }
     }
 
     /**
-     * Đồng bộ giá trị với ZooKeeper
+     * Đồng bộ giá trị với store
      */
-    private void syncWithZooKeeper(String keyName, long value) {
+    private void syncWithStore(String keyName, long value) {
         try {
-            String path = basePath + "/" + keyName;
-            
-            if (curatorFramework.checkExists().forPath(path) == null) {
-                curatorFramework.create()
-                        .creatingParentsIfNeeded()
-                        .forPath(path, String.valueOf(value).getBytes());
-            } else {
-                curatorFramework.setData()
-                        .forPath(path, String.valueOf(value).getBytes());
-            }
-            
-            zookeeperValues.put(keyName, value);
-            log.debug("Synced sequence for key '{}' with ZooKeeper: {}", keyName, value);
+            writeValue(keyName, value);
+            log.debug("Synced sequence for key '{}' with store: {}", keyName, value);
+
+        } catch (StoreUnavailableException e) {
+            log.error("Failed to sync with store for key: {}", keyName, e.getCause());
+        }
+    }
 
+    /**
+     * Ghi giá trị của key lên store
+     *
+     * @throws StoreUnavailableException nếu không ghi được
+     */
+    private void writeValue(String keyName, long value) {
+        try {
+            metrics.store(SequenceMetrics.Operation.WRITE, () -> {
+                sequenceStore.setValue(keyName, value);
+                return null;
+            });
+            storedValues.put(keyName, value);
         } catch (Exception e) {
-            log.error("Failed to sync with ZooKeeper for key: {}", keyName, e);
+            throw new StoreUnavailableException("Cannot write value of key '" + keyName + "' to the sequence store",
+                    sequenceStore.status().state(), e);
         }
     }
 
     /**
-     * Kiểm tra có cần đồng bộ với ZooKeeper không
+     * Kiểm tra có cần đồng bộ với store không
      */
-    private boolean shouldSyncWithZooKeeper(String keyName, long currentValue) {
-        Long zkValue = zookeeperValues.get(keyName);
-        if (zkValue == null) {
+    private boolean shouldSyncWithStore(String keyName, long currentValue) {
+        Long storedValue = storedValues.getIfPresent(keyName);
+        if (storedValue == null) {
             return true;
         }
         
-        // Đồng bộ nếu chênh lệch quá 50
-        return (currentValue - zkValue) >= 50;
+        // Đồng bộ nếu chênh lệch quá sync-threshold
+        return (currentValue - storedValue) >= sequenceProperties.getZookeeper().getSyncThreshold();
     }
 
     /**
      * Lấy danh sách tất cả các key đang có
      */
-    public java.util.Set<String> getAllKeys() {
+    public Set<String> getAllKeys() {
+        if (isMirrorReady()) {
+            return collapseStripes(sequenceMirror.entries(null).keySet());
+        }
+
         try {
-            return new java.util.HashSet<>(curatorFramework.getChildren().forPath(basePath));
+            return collapseStripes(metrics.store(SequenceMetrics.Operation.READ, sequenceStore::keys));
         } catch (Exception e) {
-            log.error("Failed to get all keys from ZooKeeper", e);
-            return java.util.Collections.emptySet();
+            log.error("Failed to get all keys from store", e);
+            return Collections.emptySet();
         }
     }
 
@@ -242,19 +1839,29 @@ public class SequenceGeneratorService {
      */
     public void deleteSequence(String keyName) {
         if (keyName == null || keyName.trim().isEmpty()) {
-            throw new IllegalArgumentException("KeyName cannot be null or empty");
+            throw new SequenceValidationException("KeyName cannot be null or empty");
+        }
+        if (!sequenceStore.isAvailable()) {
+            throw storeUnavailable(keyName);
         }
 
         try {
-            String path = basePath + "/" + keyName;
-            
-            if (curatorFramework.checkExists().forPath(path) != null) {
-                curatorFramework.delete().forPath(path);
+            if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRICT) {
+                strictSequencer.delete(keyName);
+            } else if (sequenceProperties.modeOf(keyName) == SequenceProperties.Mode.STRIPED) {
+                Stripes stripes = stripesFor(keyName);
+                for (int i = 0; i < stripes.getCount(); i++) {
+                    sequenceStore.delete(stripes.stripeKey(i));
+                    sequenceStore.clearFreeRanges(stripes.stripeKey(i));
+                }
+            } else {
+                sequenceStore.delete(keyName);
+                sequenceStore.clearFreeRanges(keyName);
             }
-            
+
             // Xóa khỏi cache
-            sequenceCounters.remove(keyName);
-            zookeeperValues.remove(keyName);
+            invalidateLocal(keyName);
+            bumpEpoch(keyName);
             
             log.info("Deleted sequence for key: {}", keyName);
 
@@ -0,0 +1,43 @@
+package com.example.commonserviceofficial.sequence.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gộp các lần load đồng thời cho cùng một key thành một lần gọi duy nhất.
+ *
+ * Khác với ConcurrentHashMap.computeIfAbsent, loader chạy ngoài mọi lock của map
+ * nên I/O chậm của một key không chặn các key khác nằm cùng bin.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Chạy loader cho key, hoặc chờ kết quả của lần load đang chạy cho key đó
+     */
+    V load(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+
+        try {
+            V value = loader.call();
+            call.complete(value);
+            return value;
+        } catch (Exception e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.commonserviceofficial.sequence.snowflake;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Sinh ID 64-bit theo thời gian, hoàn toàn in-memory:
+ *
+ * <pre>
+ * | 1 bit = 0 | 41 bit timestamp (ms từ epoch) | 10 bit worker ID | 12 bit sequence |
+ * </pre>
+ *
+ * Mỗi worker cấp tối đa 4096 ID trong một millisecond. Trạng thái (timestamp, sequence)
+ * được gói trong một AtomicLong và cập nhật bằng CAS, không có lock.
+ *
+ * Đồng hồ lùi không quá maxBackwardMs: tiếp tục cấp trên timestamp cũ, hết sequence thì
+ * chờ đồng hồ theo kịp. Lùi nhiều hơn: báo lỗi thay vì có nguy cơ cấp trùng.
+ */
+public final class SnowflakeIdGenerator {
+
+    public static final int WORKER_ID_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final int MAX_WORKER_ID = (1 << WORKER_ID_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int WORKER_ID_SHIFT = SEQUENCE_BITS;
+    private static final int TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+
+    private static final int NO_WORKER = -1;
+
+    private final long epochMillis;
+    private final long maxBackwardMs;
+    private final LongSupplier clock;
+
+    // (timestamp << SEQUENCE_BITS) | sequence của ID cấp gần nhất
+    private final AtomicLong state = new AtomicLong();
+
+    private volatile int workerId = NO_WORKER;
+
+    public SnowflakeIdGenerator(long epochMillis, long maxBackwardMs) {
+        this(epochMillis, maxBackwardMs, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long epochMillis, long maxBackwardMs, LongSupplier clock) {
+        this.epochMillis = epochMillis;
+        this.maxBackwardMs = maxBackwardMs;
+        this.clock = clock;
+    }
+
+    /**
+     * Sinh ID tiếp theo
+     *
+     * @throws IllegalStateException khi chưa có worker ID hoặc đồng hồ lùi quá maxBackwardMs
+     */
+    public long nextId() {
+        int worker = workerId;
+        if (worker == NO_WORKER) {
+            throw new IllegalStateException("Snowflake worker ID is not assigned");
+        }
+
+        while (true) {
+            long previous = state.get();
+            long previousTimestamp = previous >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - epochMillis;
+
+            long timestamp;
+            long sequence;
+            if (now > previousTimestamp) {
+                timestamp = now;
+                sequence = 0;
+            } else if (previousTimestamp - now > maxBackwardMs) {
+                throw new IllegalStateException("Clock moved backwards by "
+                        + (previousTimestamp - now) + " ms, refusing to generate id");
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                timestamp = previousTimestamp;
+                sequence = (previous & SEQUENCE_MASK) + 1;
+            } else {
+                // Hết sequence trong millisecond này: chờ millisecond tiếp theo
+                Thread.onSpinWait();
+                continue;
+            }
+
+            if (state.compareAndSet(previous, (timestamp << SEQUENCE_BITS) | sequence)) {
+                return (timestamp << TIMESTAMP_SHIFT) | ((long) worker << WORKER_ID_SHIFT) | sequence;
+            }
+        }
+    }
+
+    public void setWorkerId(int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("Worker ID must be between 0 and " + MAX_WORKER_ID);
+        }
+        this.workerId = workerId;
+    }
+
+    /**
+     * Ngừng cấp ID (ví dụ khi mất session ZooKeeper, worker ID có thể bị node khác nhận)
+     */
+    public void clearWorkerId() {
+        this.workerId = NO_WORKER;
+    }
+
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    public boolean isReady() {
+        return workerId != NO_WORKER;
+    }
+
+    /**
+     * Tách thời điểm sinh (epoch milliseconds) từ một ID
+     */
+    public long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + epochMillis;
+    }
+
+    /**
+     * Tách worker ID từ một ID
+     */
+    public static int workerIdOf(long id) {
+        return (int) ((id >>> WORKER_ID_SHIFT) & MAX_WORKER_ID);
+    }
+}
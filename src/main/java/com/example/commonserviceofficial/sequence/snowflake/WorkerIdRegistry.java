@@ -0,0 +1,151 @@
+package com.example.commonserviceofficial.sequence.snowflake;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.net.InetAddress;
+import java.util.List;
+
+/**
+ * Cấp worker ID cho {@link SnowflakeIdGenerator} bằng ephemeral-sequential node.
+ *
+ * worker ID = số thứ tự của node % 1024. Nếu một node đang sống khác có cùng worker ID
+ * với số thứ tự nhỏ hơn thì xóa node của mình và tạo lại (nhận số thứ tự tiếp theo).
+ *
+ * Khi mất kết nối (SUSPENDED), session có thể đã hết hạn phía server trong khi client chưa biết,
+ * node ephemeral đã bị xóa và worker ID bị node khác nhận, nên generator ngừng cấp ngay. Sau
+ * RECONNECTED chỉ cấp tiếp với worker ID cũ nếu node vẫn thuộc session hiện tại (ephemeralOwner),
+ * không thì đăng ký lại.
+ */
+@Slf4j
+public class WorkerIdRegistry implements ConnectionStateListener {
+
+    private static final String NODE_PREFIX = "worker-";
+
+    private final CuratorFramework curatorFramework;
+    private final String workersPath;
+    private final SnowflakeIdGenerator generator;
+
+    private volatile String registeredPath;
+    private volatile int registeredWorkerId;
+
+    public WorkerIdRegistry(CuratorFramework curatorFramework, String workersPath, SnowflakeIdGenerator generator) {
+        this.curatorFramework = curatorFramework;
+        this.workersPath = workersPath;
+        this.generator = generator;
+    }
+
+    /**
+     * Đăng ký worker và lắng nghe trạng thái kết nối
+     */
+    public void start() throws Exception {
+        curatorFramework.getConnectionStateListenable().addListener(this);
+        register();
+    }
+
+    /**
+     * Xóa node worker (khi shutdown)
+     */
+    public void close() {
+        curatorFramework.getConnectionStateListenable().removeListener(this);
+        generator.clearWorkerId();
+        String path = registeredPath;
+        registeredPath = null;
+        if (path != null) {
+            try {
+                curatorFramework.delete().quietly().forPath(path);
+            } catch (Exception e) {
+                log.warn("Failed to delete snowflake worker node: {}", path, e);
+            }
+        }
+    }
+
+    @Override
+    public void stateChanged(CuratorFramework client, ConnectionState newState) {
+        try {
+            if (newState == ConnectionState.SUSPENDED) {
+                generator.clearWorkerId();
+                log.warn("ZooKeeper connection suspended, snowflake generator paused");
+            } else if (newState == ConnectionState.LOST) {
+                generator.clearWorkerId();
+                registeredPath = null;
+                log.warn("ZooKeeper session lost, snowflake generator paused until worker ID is re-registered");
+            } else if (newState == ConnectionState.RECONNECTED) {
+                resume(client);
+            }
+        } catch (Exception e) {
+            log.error("Failed to re-register snowflake worker after state {}", newState, e);
+        }
+    }
+
+    /**
+     * Cấp tiếp với worker ID cũ nếu node worker vẫn là ephemeral của session hiện tại,
+     * không thì xóa node cũ (nếu còn) và đăng ký lại
+     */
+    private synchronized void resume(CuratorFramework client) throws Exception {
+        String path = registeredPath;
+        if (path != null) {
+            Stat stat = client.checkExists().forPath(path);
+            long sessionId = client.getZookeeperClient().getZooKeeper().getSessionId();
+            if (stat != null && stat.getEphemeralOwner() == sessionId) {
+                generator.setWorkerId(registeredWorkerId);
+                log.info("Snowflake worker resumed: id={}, node={}", registeredWorkerId, path);
+                return;
+            }
+            registeredPath = null;
+            if (stat != null) {
+                curatorFramework.delete().quietly().forPath(path);
+            }
+        }
+        register();
+    }
+
+    private synchronized void register() throws Exception {
+        byte[] owner = InetAddress.getLocalHost().getHostName().getBytes();
+
+        for (int attempt = 0; attempt <= SnowflakeIdGenerator.MAX_WORKER_ID; attempt++) {
+            String path = curatorFramework.create()
+                    .creatingParentContainersIfNeeded()
+                    .withMode(CreateMode.EPHEMERAL_SEQUENTIAL)
+                    .forPath(workersPath + "/" + NODE_PREFIX, owner);
+            long sequence = sequenceOf(path.substring(path.lastIndexOf('/') + 1));
+            int workerId = (int) (sequence % (SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+
+            if (!isTakenByOlderNode(sequence, workerId)) {
+                registeredPath = path;
+                registeredWorkerId = workerId;
+                generator.setWorkerId(workerId);
+                log.info("Snowflake worker registered: id={}, node={}", workerId, path);
+                return;
+            }
+
+            try {
+                curatorFramework.delete().forPath(path);
+            } catch (KeeperException.NoNodeException ignored) {
+                // Node đã bị xóa
+            }
+        }
+
+        throw new IllegalStateException("No free snowflake worker ID under " + workersPath);
+    }
+
+    private boolean isTakenByOlderNode(long sequence, int workerId) throws Exception {
+        List<String> children = curatorFramework.getChildren().forPath(workersPath);
+        for (String child : children) {
+            long other = sequenceOf(child);
+            if (other < sequence && other % (SnowflakeIdGenerator.MAX_WORKER_ID + 1) == workerId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long sequenceOf(String nodeName) {
+        return Long.parseLong(nodeName.substring(NODE_PREFIX.length()));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+
+import java.util.function.LongSupplier;
+
+/**
+ * State machine kết nối ZooKeeper dựa trên ConnectionStateListener của Curator.
+ *
+ * <pre>
+ * CONNECTED --SUSPENDED / READ_ONLY--> SUSPENDED --LOST--> LOST
+ *     ^                                    |                 |
+ *     +-------------RECONNECTED-----------+-----------------+
+ * </pre>
+ *
+ * Đo thời gian ở trạng thái SUSPENDED / LOST để báo qua health.
+ */
+@Slf4j
+public class ConnectionStateTracker implements ConnectionStateListener {
+
+    private final LongSupplier clock;
+
+    private volatile StoreStatus.State state;
+    private long degradedSince = -1;
+    private long degradedMillis;
+    private long degradedCount;
+
+    public ConnectionStateTracker(boolean connected) {
+        this(connected, System::currentTimeMillis);
+    }
+
+    public ConnectionStateTracker(boolean connected, LongSupplier clock) {
+        this.clock = clock;
+        this.state = StoreStatus.State.CONNECTED;
+        if (!connected) {
+            transition(StoreStatus.State.SUSPENDED);
+        }
+    }
+
+    @Override
+    public void stateChanged(CuratorFramework client, ConnectionState newState) {
+        switch (newState) {
+            case CONNECTED, RECONNECTED -> transition(StoreStatus.State.CONNECTED);
+            // READ_ONLY không ghi được nên không lease được
+            case SUSPENDED, READ_ONLY -> transition(StoreStatus.State.SUSPENDED);
+            case LOST -> transition(StoreStatus.State.LOST);
+            default -> {
+            }
+        }
+    }
+
+    public synchronized StoreStatus status() {
+        long current = degradedSince >= 0 ? clock.getAsLong() - degradedSince : 0;
+        return new StoreStatus(state, degradedSince, degradedMillis + current, degradedCount);
+    }
+
+    public boolean isAvailable() {
+        return state == StoreStatus.State.CONNECTED;
+    }
+
+    synchronized void transition(StoreStatus.State newState) {
+        if (newState == state) {
+            return;
+        }
+        long now = clock.getAsLong();
+        if (newState == StoreStatus.State.CONNECTED) {
+            long degraded = now - degradedSince;
+            degradedMillis += degraded;
+            degradedSince = -1;
+            log.info("ZooKeeper connection restored after {} ms, sequence refills resumed", degraded);
+        } else if (state == StoreStatus.State.CONNECTED) {
+            degradedSince = now;
+            degradedCount++;
+            log.warn("ZooKeeper connection {}, serving sequences from held ranges only", newState);
+        } else {
+            log.warn("ZooKeeper connection {} (degraded for {} ms)", newState, now - degradedSince);
+        }
+        state = newState;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Store trong process, lưu ra một file properties. Dùng cho test và môi trường một instance
+ * không có ZooKeeper / Redis.
+ *
+ * Mỗi lần thay đổi ghi toàn bộ file ra file tạm rồi đổi tên (atomic move), nên file luôn
+ * ở trạng thái hợp lệ kể cả khi process chết giữa chừng. Một file lock ngăn hai process
+ * dùng chung file (sẽ cấp trùng số).
+ */
+@Slf4j
+public class FileSequenceStore implements SequenceStore {
+
+    private final Path file;
+    private final Path tempFile;
+    private final Path lockFile;
+
+    private final Map<String, Long> values = new HashMap<>();
+
+    // Lần ghi gần nhất của từng key (chỉ trong process), để returnRange nhận ra key đã bị ghi lại
+    private final Map<String, Long> versions = new HashMap<>();
+    private long lastVersion;
+
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+    public FileSequenceStore(Path file) {
+        this.file = file.toAbsolutePath();
+        this.tempFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+        this.lockFile = this.file.resolveSibling(this.file.getFileName() + ".lock");
+    }
+
+    public synchronized void start() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        lock = lockChannel.tryLock();
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Sequence file " + file + " is used by another process");
+        }
+
+        if (Files.exists(file)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+            properties.forEach((key, value) -> values.put((String) key, Long.parseLong((String) value)));
+        }
+        log.info("File sequence store loaded {} keys from {}", values.size(), file);
+    }
+
+    public synchronized void close() throws IOException {
+        if (lock != null) {
+            lock.release();
+            lockChannel.close();
+            lock = null;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public synchronized IdRange lease(String keyName, long count) throws IOException {
+        long current = values.getOrDefault(keyName, 0L);
+        values.put(keyName, current + count);
+        persist();
+        return new IdRange(current + 1, current + count, written(keyName));
+    }
+
+    @Override
+    public synchronized Map<String, IdRange> leaseAll(Map<String, Long> counts) throws IOException {
+        Map<String, IdRange> ranges = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            long current = values.getOrDefault(entry.getKey(), 0L);
+            ranges.put(entry.getKey(), new IdRange(current + 1, current + entry.getValue()));
+        }
+        ranges.forEach((keyName, range) -> values.put(keyName, range.end()));
+        persist();
+        ranges.replaceAll((keyName, range) -> new IdRange(range.start(), range.end(), written(keyName)));
+        return ranges;
+    }
+
+    @Override
+    public synchronized Set<String> raiseAll(Map<String, Long> raiseTo) throws IOException {
+        Set<String> raised = new LinkedHashSet<>();
+        raiseTo.forEach((keyName, value) -> {
+            if (values.getOrDefault(keyName, 0L) < value) {
+                values.put(keyName, value);
+                written(keyName);
+                raised.add(keyName);
+            }
+        });
+        if (!raised.isEmpty()) {
+            persist();
+        }
+        return raised;
+    }
+
+    @Override
+    public synchronized long currentValue(String keyName) {
+        return values.getOrDefault(keyName, 0L);
+    }
+
+    @Override
+    public synchronized void setValue(String keyName, long value) throws IOException {
+        values.put(keyName, value);
+        written(keyName);
+        persist();
+    }
+
+    @Override
+    public synchronized boolean returnRange(String keyName, IdRange range) throws IOException {
+        if (range.version() == IdRange.NO_VERSION
+                || versions.getOrDefault(keyName, IdRange.NO_VERSION) != range.version()
+                || values.getOrDefault(keyName, 0L) != range.end()) {
+            return false;
+        }
+        values.put(keyName, range.start() - 1);
+        written(keyName);
+        persist();
+        return true;
+    }
+
+    @Override
+    public synchronized void delete(String keyName) throws IOException {
+        written(keyName);
+        if (values.remove(keyName) != null) {
+            persist();
+        }
+    }
+
+    @Override
+    public synchronized Set<String> keys() {
+        return new HashSet<>(values.keySet());
+    }
+
+    /**
+     * Ghi nhận một lần ghi key, trả về version mới
+     */
+    private long written(String keyName) {
+        versions.put(keyName, ++lastVersion);
+        return lastVersion;
+    }
+
+    private void persist() throws IOException {
+        Properties properties = new Properties();
+        values.forEach((key, value) -> properties.setProperty(key, String.valueOf(value)));
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            properties.store(out, "sequence store");
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
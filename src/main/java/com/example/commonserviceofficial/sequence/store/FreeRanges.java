@@ -0,0 +1,77 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Free list của một key dạng chuỗi "start-end,start-end", sắp xếp tăng dần theo start,
+ * các đoạn liền nhau được gộp lại.
+ */
+final class FreeRanges {
+
+    /**
+     * Số đoạn tối đa trong free list của một key (giới hạn kích thước znode)
+     */
+    static final int MAX_RANGES = 10_000;
+
+    private FreeRanges() {
+    }
+
+    static List<IdRange> parse(String text) {
+        List<IdRange> ranges = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return ranges;
+        }
+        for (String part : text.split(",")) {
+            int dash = part.indexOf('-', 1);
+            ranges.add(new IdRange(Long.parseLong(part.substring(0, dash)), Long.parseLong(part.substring(dash + 1))));
+        }
+        return ranges;
+    }
+
+    static String format(List<IdRange> ranges) {
+        StringBuilder text = new StringBuilder(ranges.size() * 24);
+        for (IdRange range : ranges) {
+            if (text.length() > 0) {
+                text.append(',');
+            }
+            text.append(range.start()).append('-').append(range.end());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Thêm range vào danh sách đã sắp xếp, gộp với đoạn liền kề
+     *
+     * @return false nếu range chồng lên đoạn đã có hoặc danh sách đã đầy
+     */
+    static boolean add(List<IdRange> ranges, IdRange range) {
+        int index = 0;
+        while (index < ranges.size() && ranges.get(index).start() < range.start()) {
+            index++;
+        }
+        IdRange before = index > 0 ? ranges.get(index - 1) : null;
+        IdRange after = index < ranges.size() ? ranges.get(index) : null;
+        if ((before != null && before.end() >= range.start()) || (after != null && after.start() <= range.end())) {
+            return false;
+        }
+
+        long start = range.start();
+        long end = range.end();
+        if (after != null && after.start() == end + 1) {
+            end = after.end();
+            ranges.remove(index);
+        }
+        if (before != null && before.end() + 1 == start) {
+            start = before.start();
+            ranges.remove(--index);
+        }
+        if (ranges.size() >= MAX_RANGES) {
+            return false;
+        }
+        ranges.add(index, new IdRange(start, end));
+        return true;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Store trên Redis: mỗi key là một string {keyPrefix}{keyName}.
+ *
+ * Lease dùng INCRBY nên nguyên tử trên server, không cần retry khi nhiều node lease cùng lúc.
+ * Độ bền phụ thuộc cấu hình persistence của Redis (nên bật AOF với appendfsync everysec trở lên).
+ *
+ * Lease nhiều key ({@link #leaseAll(Map)}) chạy INCRBY từng key trong một script Lua (nguyên tử,
+ * một round trip); Redis Cluster yêu cầu các key cùng slot, đặt hash tag cho keyPrefix hoặc keyName.
+ *
+ * Free list của key là sorted set {keyPrefix}_free:{keyName} (score = start), lấy ra bằng ZPOPMIN.
+ *
+ * Mỗi lần ghi key (lease, set, raise, delete) tăng version {keyPrefix}_version:{keyName} trong cùng
+ * script, {@link #returnRange} chỉ trả lại đoạn khi version chưa đổi kể từ lần lease. Version không
+ * bị xóa cùng key để key tạo lại không dùng lại version cũ. Redis Cluster: đặt hash tag cho keyName
+ * để key và version cùng slot.
+ */
+public class RedisSequenceStore implements SequenceStore {
+
+    // INCRBY và tăng version, trả về {max, version}
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE = new DefaultRedisScript<>(
+            "return {redis.call('INCRBY', KEYS[1], ARGV[1]), redis.call('INCR', KEYS[2])}",
+            List.class);
+
+    // Compare-and-set: chỉ hạ giá trị khi chưa ai ghi key sau lần lease đoạn được trả lại
+    private static final RedisScript<Long> RETURN_RANGE = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[2]) == ARGV[3] and redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('SET', KEYS[1], ARGV[2]) redis.call('INCR', KEYS[2]) return 1 end return 0",
+            Long.class);
+
+    // KEYS = các key rồi các key version tương ứng. Kiểm tra mọi key trước rồi mới INCRBY để lỗi
+    // ở một key không làm các key khác bị tăng; trả về max của từng key rồi version của từng key
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE_ALL = new DefaultRedisScript<>(
+            "local n = #ARGV "
+                    + "for i = 1, n do "
+                    + "local value = redis.call('GET', KEYS[i]) "
+                    + "if value and not tonumber(value) then "
+                    + "return redis.error_reply('ERR value of ' .. KEYS[i] .. ' is not an integer') end end "
+                    + "local result = {} "
+                    + "for i = 1, n do result[i] = redis.call('INCRBY', KEYS[i], ARGV[i]) "
+                    + "result[n + i] = redis.call('INCR', KEYS[n + i]) end "
+                    + "return result",
+            List.class);
+
+    // KEYS = các key rồi các key version. Chỉ SET khi giá trị mới lớn hơn giá trị hiện tại,
+    // trả về 1 cho key đã được nâng
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> RAISE_ALL = new DefaultRedisScript<>(
+            "local n = #ARGV "
+                    + "local result = {} "
+                    + "for i = 1, n do "
+                    + "local current = tonumber(redis.call('GET', KEYS[i]) or '0') "
+                    + "if current < tonumber(ARGV[i]) then redis.call('SET', KEYS[i], ARGV[i]) "
+                    + "redis.call('INCR', KEYS[n + i]) result[i] = 1 "
+                    + "else result[i] = 0 end end "
+                    + "return result",
+            List.class);
+
+    // SET (ARGV[1]) hoặc DEL (không có ARGV) kèm tăng version
+    private static final RedisScript<Long> WRITE = new DefaultRedisScript<>(
+            "if #ARGV > 0 then redis.call('SET', KEYS[1], ARGV[1]) else redis.call('DEL', KEYS[1]) end "
+                    + "return redis.call('INCR', KEYS[2])",
+            Long.class);
+
+    private static final String FREE_PREFIX = "_free:";
+    private static final String VERSION_PREFIX = "_version:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    public RedisSequenceStore(StringRedisTemplate redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public String name() {
+        return "redis";
+    }
+
+    @Override
+    public IdRange lease(String keyName, long count) {
+        List<?> result = redisTemplate.execute(LEASE, List.of(keyPrefix + keyName, versionKeyOf(keyName)),
+                String.valueOf(count));
+        if (result == null || result.size() != 2) {
+            throw new IllegalStateException("INCRBY returned no value for key '" + keyName + "'");
+        }
+        long max = ((Number) result.get(0)).longValue();
+        return new IdRange(max - count + 1, max, ((Number) result.get(1)).longValue());
+    }
+
+    @Override
+    public Map<String, IdRange> leaseAll(Map<String, Long> counts) {
+        List<String> increments = new ArrayList<>(counts.size());
+        counts.forEach((keyName, count) -> increments.add(String.valueOf(count)));
+
+        List<?> result = redisTemplate.execute(LEASE_ALL, redisKeysOf(counts.keySet()), increments.toArray());
+        if (result == null || result.size() != counts.size() * 2) {
+            throw new IllegalStateException("Lease script returned no value for keys " + counts.keySet());
+        }
+        Map<String, IdRange> ranges = new LinkedHashMap<>();
+        int index = 0;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            long max = ((Number) result.get(index)).longValue();
+            long version = ((Number) result.get(counts.size() + index++)).longValue();
+            ranges.put(entry.getKey(), new IdRange(max - entry.getValue() + 1, max, version));
+        }
+        return ranges;
+    }
+
+    @Override
+    public Set<String> raiseAll(Map<String, Long> values) {
+        List<String> keyNames = new ArrayList<>(values.keySet());
+        Object[] targets = keyNames.stream().map(keyName -> String.valueOf(values.get(keyName))).toArray();
+
+        List<?> changed = redisTemplate.execute(RAISE_ALL, redisKeysOf(keyNames), targets);
+        Set<String> raised = new LinkedHashSet<>();
+        for (int i = 0; changed != null && i < changed.size(); i++) {
+            if (((Number) changed.get(i)).longValue() == 1L) {
+                raised.add(keyNames.get(i));
+            }
+        }
+        return raised;
+    }
+
+    @Override
+    public long currentValue(String keyName) {
+        String value = redisTemplate.opsForValue().get(keyPrefix + keyName);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    @Override
+    public void setValue(String keyName, long value) {
+        redisTemplate.execute(WRITE, List.of(keyPrefix + keyName, versionKeyOf(keyName)), String.valueOf(value));
+    }
+
+    @Override
+    public boolean returnRange(String keyName, IdRange range) {
+        if (range.version() == IdRange.NO_VERSION) {
+            return false;
+        }
+        Long returned = redisTemplate.execute(RETURN_RANGE, List.of(keyPrefix + keyName, versionKeyOf(keyName)),
+                String.valueOf(range.end()), String.valueOf(range.start() - 1), String.valueOf(range.version()));
+        return returned != null && returned == 1L;
+    }
+
+    @Override
+    public boolean addFreeRange(String keyName, IdRange range) {
+        Boolean added = redisTemplate.opsForZSet().add(keyPrefix + FREE_PREFIX + keyName,
+                range.start() + "-" + range.end(), range.start());
+        return Boolean.TRUE.equals(added);
+    }
+
+    @Override
+    public IdRange takeFreeRange(String keyName) {
+        ZSetOperations.TypedTuple<String> lowest = redisTemplate.opsForZSet().popMin(keyPrefix + FREE_PREFIX + keyName);
+        if (lowest == null || lowest.getValue() == null) {
+            return null;
+        }
+        String value = lowest.getValue();
+        int dash = value.indexOf('-', 1);
+        return new IdRange(Long.parseLong(value.substring(0, dash)), Long.parseLong(value.substring(dash + 1)));
+    }
+
+    @Override
+    public void clearFreeRanges(String keyName) {
+        redisTemplate.delete(keyPrefix + FREE_PREFIX + keyName);
+    }
+
+    @Override
+    public void delete(String keyName) {
+        redisTemplate.execute(WRITE, List.of(keyPrefix + keyName, versionKeyOf(keyName)));
+    }
+
+    @Override
+    public Set<String> keys() {
+        Set<String> keys = new HashSet<>();
+        ScanOptions options = ScanOptions.scanOptions().match(keyPrefix + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(key -> {
+                String keyName = key.substring(keyPrefix.length());
+                if (!keyName.startsWith(FREE_PREFIX) && !keyName.startsWith(VERSION_PREFIX)) {
+                    keys.add(keyName);
+                }
+            });
+        }
+        return keys;
+    }
+
+    private String versionKeyOf(String keyName) {
+        return keyPrefix + VERSION_PREFIX + keyName;
+    }
+
+    /**
+     * Các key rồi các key version tương ứng (KEYS của script nhiều key)
+     */
+    private List<String> redisKeysOf(Collection<String> keyNames) {
+        List<String> redisKeys = new ArrayList<>(keyNames.size() * 2);
+        keyNames.forEach(keyName -> redisKeys.add(keyPrefix + keyName));
+        keyNames.forEach(keyName -> redisKeys.add(versionKeyOf(keyName)));
+        return redisKeys;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * SPI lưu trữ giá trị của các sequence key.
+ *
+ * Mỗi key có một giá trị long: ở mode SEGMENT là giá trị lớn nhất đã được lease,
+ * ở mode CACHED là giá trị đồng bộ gần nhất. {@link #lease(String, long)} phải nguyên tử
+ * với mọi node dùng chung store, đó là điều kiện để số cấp ra không bị trùng.
+ *
+ * Các method async mặc định gọi method đồng bộ trên thread hiện tại;
+ * store có client non-blocking nên override.
+ */
+public interface SequenceStore {
+
+    /**
+     * Tên store (zookeeper, redis, file), dùng cho log và health
+     */
+    String name();
+
+    /**
+     * Lease count giá trị tiếp theo của key: [current + 1 .. current + count].
+     * Key chưa tồn tại được coi như có giá trị 0. Store hỗ trợ {@link #returnRange} đặt
+     * IdRange.version là version của lần ghi này.
+     */
+    IdRange lease(String keyName, long count) throws Exception;
+
+    /**
+     * Lease cho nhiều key trong một lần gọi. Store có transaction override để hoặc mọi key đều
+     * được lease, hoặc không key nào thay đổi.
+     *
+     * Mặc định KHÔNG nguyên tử: lease lần lượt từng key, một key lỗi thì trả lại các đoạn đã lease
+     * ({@link #returnRange}, không được thì {@link #addFreeRange}) rồi ném exception. Node khác có thể
+     * thấy giá trị đã lease trong lúc đó, và đoạn không trả lại được thành khoảng trống.
+     *
+     * @param counts số giá trị cần lease của từng key
+     * @return đoạn đã lease của từng key, cùng thứ tự với counts
+     */
+    default Map<String, IdRange> leaseAll(Map<String, Long> counts) throws Exception {
+        Map<String, IdRange> ranges = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                ranges.put(entry.getKey(), lease(entry.getKey(), entry.getValue()));
+            }
+        } catch (Exception e) {
+            for (Map.Entry<String, IdRange> leased : ranges.entrySet()) {
+                try {
+                    if (!returnRange(leased.getKey(), leased.getValue())) {
+                        addFreeRange(leased.getKey(), leased.getValue());
+                    }
+                } catch (Exception rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+            }
+            throw e;
+        }
+        return ranges;
+    }
+
+    /**
+     * Nâng giá trị của các key lên ít nhất giá trị đã cho, không bao giờ hạ (import / restore).
+     * Store có transaction override để nâng mọi key trong một lần ghi.
+     *
+     * Mặc định KHÔNG nguyên tử giữa các key: đọc rồi lease phần chênh lệch lần lượt từng key
+     * (nguyên tử với lease của node khác). Lỗi giữa chừng thì các key trước đã được nâng và không
+     * hạ lại; nâng không bao giờ hạ nên gọi lại cùng giá trị là an toàn.
+     *
+     * @return các key đã được nâng
+     */
+    default Set<String> raiseAll(Map<String, Long> values) throws Exception {
+        Set<String> raised = new LinkedHashSet<>();
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            long current = currentValue(entry.getKey());
+            if (current < entry.getValue()) {
+                lease(entry.getKey(), entry.getValue() - current);
+                raised.add(entry.getKey());
+            }
+        }
+        return raised;
+    }
+
+    /**
+     * Giá trị hiện tại của key, 0 nếu key chưa tồn tại
+     */
+    long currentValue(String keyName) throws Exception;
+
+    /**
+     * Ghi đè giá trị của key (reset, hoặc đồng bộ ở mode CACHED)
+     */
+    void setValue(String keyName, long value) throws Exception;
+
+    /**
+     * Trả lại đoạn đã lease nhưng chưa cấp: chỉ khi key chưa bị ghi lần nào kể từ lần lease đó
+     * (version hiện tại == range.version, nên reset / delete rồi lease lại tới đúng range.end
+     * cũng không khớp) thì đặt giá trị về range.start - 1, nguyên tử với lease.
+     *
+     * @return true nếu đã trả lại, false nếu key đã bị ghi sau đó hoặc range không có version
+     */
+    default boolean returnRange(String keyName, IdRange range) throws Exception {
+        return false;
+    }
+
+    /**
+     * Đưa đoạn chưa cấp vào free list của key (khi không trả lại được bằng {@link #returnRange}),
+     * các lần lease sau trên node bất kỳ lấy lại đoạn này trước
+     *
+     * @return false nếu store không có free list hoặc không nhận đoạn này
+     */
+    default boolean addFreeRange(String keyName, IdRange range) throws Exception {
+        return false;
+    }
+
+    /**
+     * Lấy ra đoạn nhỏ nhất trong free list của key (nguyên tử giữa các node)
+     *
+     * @return null nếu free list trống
+     */
+    default IdRange takeFreeRange(String keyName) throws Exception {
+        return null;
+    }
+
+    /**
+     * Xóa free list của key (reset / delete)
+     */
+    default void clearFreeRanges(String keyName) throws Exception {
+    }
+
+    /**
+     * Xóa key, không lỗi nếu key không tồn tại
+     */
+    void delete(String keyName) throws Exception;
+
+    /**
+     * Tất cả sequence key đang có
+     */
+    Set<String> keys() throws Exception;
+
+    /**
+     * Trạng thái kết nối; store không có khái niệm kết nối luôn trả về CONNECTED
+     */
+    default StoreStatus status() {
+        return StoreStatus.CONNECTED;
+    }
+
+    /**
+     * Gọi được store hay không (hot path, không tạo object)
+     */
+    default boolean isAvailable() {
+        return status().isAvailable();
+    }
+
+    default CompletableFuture<Long> currentValueAsync(String keyName) {
+        try {
+            return CompletableFuture.completedFuture(currentValue(keyName));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    default CompletableFuture<Set<String>> keysAsync() {
+        try {
+            return CompletableFuture.completedFuture(keys());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
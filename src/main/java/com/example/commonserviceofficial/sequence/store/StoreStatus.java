@@ -0,0 +1,38 @@
+package com.example.commonserviceofficial.sequence.store;
+
+/**
+ * Trạng thái kết nối của store tại một thời điểm
+ *
+ * @param state          trạng thái hiện tại
+ * @param degradedSince  thời điểm bắt đầu mất kết nối (epoch milliseconds), -1 khi đang kết nối
+ * @param degradedMillis tổng thời gian mất kết nối từ lúc khởi động (kể cả lần hiện tại)
+ * @param degradedCount  số lần chuyển sang trạng thái mất kết nối
+ */
+public record StoreStatus(State state, long degradedSince, long degradedMillis, long degradedCount) {
+
+    public static final StoreStatus CONNECTED = new StoreStatus(State.CONNECTED, -1, 0, 0);
+
+    public enum State {
+        /**
+         * Store hoạt động bình thường
+         */
+        CONNECTED,
+
+        /**
+         * Mất kết nối tạm thời, session có thể còn: vẫn cấp từ các đoạn đang giữ, không lease mới
+         */
+        SUSPENDED,
+
+        /**
+         * Session đã hết hạn, chờ kết nối lại
+         */
+        LOST
+    }
+
+    /**
+     * Có thể gọi store (lease / đọc / ghi) hay không
+     */
+    public boolean isAvailable() {
+        return state == State.CONNECTED;
+    }
+}
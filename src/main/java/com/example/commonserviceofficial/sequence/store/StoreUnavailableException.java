@@ -0,0 +1,24 @@
+package com.example.commonserviceofficial.sequence.store;
+
+/**
+ * Store đang mất kết nối và node không còn đoạn số nào để cấp cho key,
+ * hoặc một lần ghi bắt buộc (reset) không tới được store
+ */
+public class StoreUnavailableException extends RuntimeException {
+
+    private final StoreStatus.State state;
+
+    public StoreUnavailableException(String message, StoreStatus.State state) {
+        super(message);
+        this.state = state;
+    }
+
+    public StoreUnavailableException(String message, StoreStatus.State state, Throwable cause) {
+        super(message, cause);
+        this.state = state;
+    }
+
+    public StoreStatus.State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.commonserviceofficial.sequence.store;
+
+/**
+ * Vị trí znode của sequence key dưới base path.
+ *
+ * FLAT (buckets = 0): {basePath}/{keyName}, như các phiên bản trước.
+ * HASHED (buckets > 0): {basePath}/_buckets/{bucket}/{keyName}, bucket lấy từ hash của tên key,
+ * nên mỗi node cha chỉ có khoảng (số key / buckets) con và getChildren không phải đọc một
+ * danh sách hàng trăm nghìn phần tử.
+ *
+ * Hash dựa trên String.hashCode (cố định theo đặc tả Java) nên mọi node tính ra cùng bucket.
+ * Đổi số bucket khi đã có dữ liệu phải dừng toàn bộ node và chạy {@link ZooKeeperLayoutMigration}.
+ */
+public final class ZooKeeperKeyLayout {
+
+    /**
+     * Node cha (dưới base path) chứa các bucket
+     */
+    public static final String BUCKETS_NODE = ZooKeeperSequenceStore.RESERVED_PREFIX + "buckets";
+
+    private final String basePath;
+    private final String bucketsPath;
+    private final int buckets;
+    private final String[] bucketNames;
+
+    public ZooKeeperKeyLayout(String basePath, int buckets) {
+        if (buckets < 0) {
+            throw new IllegalArgumentException("Bucket count must not be negative: " + buckets);
+        }
+        this.basePath = basePath;
+        this.bucketsPath = basePath + "/" + BUCKETS_NODE;
+        this.buckets = buckets;
+
+        // Tên bucket dạng hex cùng độ dài (00..ff) để listing có thứ tự ổn định
+        this.bucketNames = new String[buckets];
+        int width = buckets > 1 ? Integer.toHexString(buckets - 1).length() : 1;
+        for (int i = 0; i < buckets; i++) {
+            String hex = Integer.toHexString(i);
+            bucketNames[i] = "0".repeat(width - hex.length()) + hex;
+        }
+    }
+
+    public boolean isHashed() {
+        return buckets > 0;
+    }
+
+    public int getBuckets() {
+        return buckets;
+    }
+
+    public String getBasePath() {
+        return basePath;
+    }
+
+    public String getBucketsPath() {
+        return bucketsPath;
+    }
+
+    /**
+     * Znode hiện hành của key theo layout đang cấu hình
+     */
+    public String pathOf(String keyName) {
+        return isHashed() ? bucketPathOf(keyName) + "/" + keyName : flatPathOf(keyName);
+    }
+
+    /**
+     * Znode của key trong layout FLAT (trước khi migrate)
+     */
+    public String flatPathOf(String keyName) {
+        return basePath + "/" + keyName;
+    }
+
+    public String bucketPathOf(String keyName) {
+        return bucketsPath + "/" + bucketNames[bucketOf(keyName)];
+    }
+
+    int bucketOf(String keyName) {
+        int hash = keyName.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), buckets);
+    }
+
+    /**
+     * Tên key của một znode (FLAT hoặc trong bucket bất kỳ), null nếu không phải node key
+     */
+    public String keyNameOf(String path) {
+        if (path.length() <= basePath.length() + 1 || !path.startsWith(basePath + "/")) {
+            return null;
+        }
+        String name = path.substring(basePath.length() + 1);
+        int slash = name.indexOf('/');
+        if (slash < 0) {
+            return name.startsWith(ZooKeeperSequenceStore.RESERVED_PREFIX) ? null : name;
+        }
+        if (!path.startsWith(bucketsPath + "/")) {
+            return null;
+        }
+        String inBucket = path.substring(bucketsPath.length() + 1);
+        slash = inBucket.indexOf('/');
+        if (slash <= 0 || slash == inBucket.length() - 1 || inBucket.indexOf('/', slash + 1) >= 0) {
+            return null;
+        }
+        return inBucket.substring(slash + 1);
+    }
+}
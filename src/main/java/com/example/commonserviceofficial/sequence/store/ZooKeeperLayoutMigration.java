@@ -0,0 +1,64 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Công cụ chuyển toàn bộ sequence key sang layout HASHED (hoặc sang số bucket mới).
+ *
+ * Chạy khi mọi node đã dừng, vì node còn chạy layout cũ sẽ tạo lại key FLAT từ 1:
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.example.commonserviceofficial.sequence.store.ZooKeeperLayoutMigration \
+ *     org.springframework.boot.loader.launch.PropertiesLauncher localhost:2181 /sequences 256
+ * </pre>
+ * Mỗi key được chuyển bằng một transaction (create + delete có kiểm tra version) nên có thể
+ * chạy lại khi bị ngắt giữa chừng. Sau đó khởi động các node với
+ * sequence.zookeeper.buckets bằng số bucket đã dùng.
+ */
+@Slf4j
+public final class ZooKeeperLayoutMigration {
+
+    private static final int MAX_MOVE_RETRIES = 10;
+
+    private ZooKeeperLayoutMigration() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: ZooKeeperLayoutMigration <connect-string> <base-path> <buckets>");
+            System.exit(2);
+        }
+        int buckets = Integer.parseInt(args[2]);
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("Bucket count must be positive: " + buckets);
+        }
+
+        try (CuratorFramework curatorFramework = CuratorFrameworkFactory.newClient(args[0],
+                new ExponentialBackoffRetry(1000, 3))) {
+            curatorFramework.start();
+            if (!curatorFramework.blockUntilConnected(30, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Cannot connect to ZooKeeper " + args[0]);
+            }
+            System.out.println("Moved " + migrate(curatorFramework, args[1], buckets) + " keys");
+        }
+    }
+
+    /**
+     * Chuyển mọi key dưới basePath về vị trí của layout có số bucket đã cho
+     *
+     * @return số key đã chuyển
+     */
+    public static int migrate(CuratorFramework curatorFramework, String basePath, int buckets) throws Exception {
+        long startedAt = System.currentTimeMillis();
+        ZooKeeperSequenceStore store = new ZooKeeperSequenceStore(curatorFramework, basePath, buckets,
+                MAX_MOVE_RETRIES);
+        int moved = store.migrateAll();
+        log.info("Migrated {} sequence keys under {} to {} buckets in {} ms",
+                moved, basePath, buckets, System.currentTimeMillis() - startedAt);
+        return moved;
+    }
+}
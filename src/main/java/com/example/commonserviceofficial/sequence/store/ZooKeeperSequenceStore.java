@@ -0,0 +1,621 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.curator.framework.api.transaction.CuratorTransactionResult;
+import org.apache.curator.x.async.AsyncCuratorFramework;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Store mặc định: mỗi key là một znode chứa giá trị dạng chuỗi số, vị trí znode theo
+ * {@link ZooKeeperKeyLayout} (FLAT {basePath}/{keyName} hoặc HASHED theo bucket).
+ *
+ * Lease dùng setData có kiểm tra version (compare-and-set); khi node khác lease cùng lúc
+ * (BadVersion) thì đọc lại và thử lại. Các lệnh đọc async đi qua AsyncCuratorFramework.
+ *
+ * Trạng thái kết nối được theo dõi bằng {@link ConnectionStateTracker}; khởi động khi
+ * ZooKeeper chưa kết nối được thì base path được tạo sau khi kết nối.
+ *
+ * Lease nhiều key ({@link #leaseAll(Map)}) và import ({@link #raiseAll(Map)}) đọc song song các
+ * znode rồi ghi tất cả trong một transaction (multi-op) với version đã đọc; một key bị node khác
+ * lease trước thì cả transaction bị hủy và thử lại.
+ *
+ * Free list của key nằm ở {basePath}/_free/{keyName} ({@link FreeRanges}), cập nhật bằng
+ * compare-and-set theo version như lease.
+ *
+ * Layout HASHED tự migrate từng key: khi znode trong bucket chưa có mà node FLAT cũ còn,
+ * key được chuyển sang bucket bằng một transaction (create + delete có kiểm tra version).
+ */
+@Slf4j
+public class ZooKeeperSequenceStore implements SequenceStore {
+
+    /**
+     * Node con của base path bắt đầu bằng tiền tố này là metadata, không phải sequence key
+     */
+    public static final String RESERVED_PREFIX = "_";
+
+    /**
+     * Node cha (dưới base path) chứa free list của các key
+     */
+    public static final String FREE_NODE = RESERVED_PREFIX + "free";
+
+    private final CuratorFramework curatorFramework;
+    private final AsyncCuratorFramework asyncCuratorFramework;
+    private final String basePath;
+    private final ZooKeeperKeyLayout layout;
+    private final int maxLeaseRetries;
+
+    // Bucket đã chắc chắn tồn tại, tránh checkExists mỗi lần migrate
+    private final Set<String> readyBuckets = ConcurrentHashMap.newKeySet();
+
+    private ConnectionStateTracker connectionStateTracker;
+
+    private volatile boolean basePathReady;
+
+    public ZooKeeperSequenceStore(CuratorFramework curatorFramework, String basePath, int maxLeaseRetries) {
+        this(curatorFramework, basePath, 0, maxLeaseRetries);
+    }
+
+    public ZooKeeperSequenceStore(CuratorFramework curatorFramework, String basePath, int buckets,
+                                  int maxLeaseRetries) {
+        this.curatorFramework = curatorFramework;
+        this.asyncCuratorFramework = AsyncCuratorFramework.wrap(curatorFramework);
+        this.basePath = basePath;
+        this.layout = new ZooKeeperKeyLayout(basePath, buckets);
+        this.maxLeaseRetries = maxLeaseRetries;
+    }
+
+    /**
+     * Bắt đầu theo dõi kết nối, tạo base path nếu đang kết nối
+     */
+    public void start() throws Exception {
+        boolean connected = curatorFramework.getZookeeperClient().isConnected();
+        connectionStateTracker = new ConnectionStateTracker(connected);
+        curatorFramework.getConnectionStateListenable().addListener(connectionStateTracker);
+        curatorFramework.getConnectionStateListenable().addListener((client, newState) -> {
+            if (newState.isConnected() && !basePathReady) {
+                try {
+                    ensureBasePath();
+                } catch (Exception e) {
+                    log.warn("Failed to create sequence base path {}", basePath, e);
+                }
+            }
+        });
+        if (connected) {
+            ensureBasePath();
+        } else {
+            log.warn("ZooKeeper is not connected, sequence store starts degraded");
+        }
+    }
+
+    private void ensureBasePath() throws Exception {
+        if (curatorFramework.checkExists().forPath(basePath) == null) {
+            try {
+                curatorFramework.create()
+                        .creatingParentsIfNeeded()
+                        .forPath(basePath);
+            } catch (KeeperException.NodeExistsException ignored) {
+                // Node khác vừa tạo
+            }
+        }
+        basePathReady = true;
+    }
+
+    @Override
+    public String name() {
+        return "zookeeper";
+    }
+
+    public String getBasePath() {
+        return basePath;
+    }
+
+    public ZooKeeperKeyLayout getLayout() {
+        return layout;
+    }
+
+    @Override
+    public StoreStatus status() {
+        return connectionStateTracker != null ? connectionStateTracker.status() : StoreStatus.CONNECTED;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return connectionStateTracker == null || connectionStateTracker.isAvailable();
+    }
+
+    @Override
+    public IdRange lease(String keyName, long count) throws Exception {
+        String path = layout.pathOf(keyName);
+
+        for (int attempt = 1; attempt <= maxLeaseRetries; attempt++) {
+            Stat stat = new Stat();
+            byte[] data;
+            try {
+                data = curatorFramework.getData().storingStatIn(stat).forPath(path);
+            } catch (KeeperException.NoNodeException e) {
+                if (layout.isHashed() && moveKey(keyName, layout.flatPathOf(keyName))) {
+                    continue;
+                }
+                try {
+                    // Key mới: tạo node đồng thời lease luôn đoạn đầu tiên
+                    Stat created = new Stat();
+                    curatorFramework.create()
+                            .storingStatIn(created)
+                            .creatingParentsIfNeeded()
+                            .forPath(path, String.valueOf(count).getBytes());
+                    log.info("Leased range for new key '{}': [1..{}]", keyName, count);
+                    return new IdRange(1, count, created.getMzxid());
+                } catch (KeeperException.NodeExistsException ignored) {
+                    continue;
+                }
+            }
+
+            long current = Long.parseLong(new String(data));
+            long max = current + count;
+            try {
+                Stat written = curatorFramework.setData()
+                        .withVersion(stat.getVersion())
+                        .forPath(path, String.valueOf(max).getBytes());
+                log.debug("Leased range for key '{}': [{}..{}]", keyName, current + 1, max);
+                return new IdRange(current + 1, max, written.getMzxid());
+            } catch (KeeperException.BadVersionException e) {
+                log.debug("Lease conflict for key '{}' (attempt {}/{})", keyName, attempt, maxLeaseRetries);
+            }
+        }
+
+        throw new IllegalStateException("Cannot lease range for key '" + keyName
+                + "' after " + maxLeaseRetries + " attempts");
+    }
+
+    @Override
+    public Map<String, IdRange> leaseAll(Map<String, Long> counts) throws Exception {
+        Updated updated = updateAll(counts.keySet(), (keyName, current) -> current + counts.get(keyName));
+        Map<String, IdRange> ranges = new LinkedHashMap<>();
+        updated.previous().forEach((keyName, current) -> ranges.put(keyName,
+                new IdRange(current + 1, current + counts.get(keyName), updated.zxid())));
+        log.debug("Leased ranges in one transaction: {}", ranges);
+        return ranges;
+    }
+
+    @Override
+    public Set<String> raiseAll(Map<String, Long> values) throws Exception {
+        return updateAll(values.keySet(), (keyName, current) -> current < values.get(keyName) ? values.get(keyName) : null)
+                .previous().keySet();
+    }
+
+    /**
+     * Đọc song song mọi key (một round trip) rồi ghi các giá trị mới trong một transaction với
+     * version đã đọc; một key bị node khác thay đổi trước thì cả transaction bị hủy và thử lại.
+     *
+     * @param update giá trị mới của key từ giá trị hiện tại (0 nếu chưa có), null thì giữ nguyên
+     * @return giá trị trước khi ghi của các key đã ghi (cùng thứ tự với keyNames) và zxid của transaction
+     */
+    private Updated updateAll(Collection<String> keyNames, BiFunction<String, Long, Long> update)
+            throws Exception {
+        for (int attempt = 1; attempt <= maxLeaseRetries; attempt++) {
+            Map<String, Stat> stats = new LinkedHashMap<>();
+            Map<String, CompletableFuture<Long>> reads = new LinkedHashMap<>();
+            for (String keyName : keyNames) {
+                Stat stat = new Stat();
+                stats.put(keyName, stat);
+                reads.put(keyName, readAsync(layout.pathOf(keyName), stat));
+            }
+            try {
+                CompletableFuture.allOf(reads.values().toArray(new CompletableFuture[0])).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+
+            List<CuratorOp> operations = new ArrayList<>(keyNames.size());
+            Map<String, Long> previous = new LinkedHashMap<>();
+            boolean moved = false;
+            for (String keyName : keyNames) {
+                String path = layout.pathOf(keyName);
+                Long current = reads.get(keyName).join();
+                Long value = update.apply(keyName, current != null ? current : 0L);
+                if (value == null) {
+                    continue;
+                }
+                if (current == null) {
+                    if (layout.isHashed()) {
+                        if (moveKey(keyName, layout.flatPathOf(keyName))) {
+                            moved = true;
+                            continue;
+                        }
+                        ensureBucket(keyName);
+                    }
+                    operations.add(curatorFramework.transactionOp().create()
+                            .forPath(path, String.valueOf(value).getBytes()));
+                } else {
+                    operations.add(curatorFramework.transactionOp().setData()
+                            .withVersion(stats.get(keyName).getVersion())
+                            .forPath(path, String.valueOf(value).getBytes()));
+                }
+                previous.put(keyName, current != null ? current : 0L);
+            }
+            if (moved) {
+                // Key FLAT vừa được chuyển sang bucket, đọc lại
+                continue;
+            }
+            if (operations.isEmpty()) {
+                return new Updated(previous, IdRange.NO_VERSION);
+            }
+
+            try {
+                List<CuratorTransactionResult> results = curatorFramework.transaction().forOperations(operations);
+                // Mọi thao tác trong một transaction có chung zxid
+                long zxid = results.stream()
+                        .map(CuratorTransactionResult::getResultStat)
+                        .filter(Objects::nonNull)
+                        .mapToLong(Stat::getMzxid)
+                        .findFirst()
+                        .orElse(IdRange.NO_VERSION);
+                return new Updated(previous, zxid);
+            } catch (KeeperException.BadVersionException | KeeperException.NodeExistsException
+                     | KeeperException.NoNodeException e) {
+                // Node khác vừa lease / tạo / xóa một trong các key, hoặc bucket bị xóa
+                readyBuckets.clear();
+                log.debug("Transaction conflict for keys {} (attempt {}/{})", keyNames, attempt, maxLeaseRetries);
+            }
+        }
+
+        throw new IllegalStateException("Cannot update keys " + keyNames
+                + " after " + maxLeaseRetries + " attempts");
+    }
+
+    @Override
+    public long currentValue(String keyName) throws Exception {
+        try {
+            return Long.parseLong(new String(curatorFramework.getData().forPath(layout.pathOf(keyName))));
+        } catch (KeeperException.NoNodeException e) {
+            if (!layout.isHashed()) {
+                return 0L;
+            }
+        }
+        // Key chưa migrate
+        try {
+            return Long.parseLong(new String(curatorFramework.getData().forPath(layout.flatPathOf(keyName))));
+        } catch (KeeperException.NoNodeException e) {
+            return 0L;
+        }
+    }
+
+    @Override
+    public void setValue(String keyName, long value) throws Exception {
+        String path = layout.pathOf(keyName);
+        try {
+            curatorFramework.setData().forPath(path, String.valueOf(value).getBytes());
+        } catch (KeeperException.NoNodeException e) {
+            curatorFramework.create()
+                    .orSetData()
+                    .creatingParentsIfNeeded()
+                    .forPath(path, String.valueOf(value).getBytes());
+        }
+        if (layout.isHashed()) {
+            curatorFramework.delete().quietly().forPath(layout.flatPathOf(keyName));
+        }
+    }
+
+    /**
+     * So mzxid của znode với version của đoạn: mzxid duy nhất trên cả ensemble nên znode bị
+     * ghi lại (kể cả bị xóa rồi tạo lại với cùng giá trị) đều làm lệch
+     */
+    @Override
+    public boolean returnRange(String keyName, IdRange range) throws Exception {
+        if (range.version() == IdRange.NO_VERSION) {
+            return false;
+        }
+        String path = layout.pathOf(keyName);
+        Stat stat = new Stat();
+        try {
+            byte[] data = curatorFramework.getData().storingStatIn(stat).forPath(path);
+            if (stat.getMzxid() != range.version() || Long.parseLong(new String(data)) != range.end()) {
+                return false;
+            }
+            curatorFramework.setData()
+                    .withVersion(stat.getVersion())
+                    .forPath(path, String.valueOf(range.start() - 1).getBytes());
+            return true;
+        } catch (KeeperException.NoNodeException | KeeperException.BadVersionException e) {
+            // Key đã bị xóa / chưa migrate, hoặc node khác vừa lease
+            return false;
+        }
+    }
+
+    @Override
+    public boolean addFreeRange(String keyName, IdRange range) throws Exception {
+        String path = freePathOf(keyName);
+        for (int attempt = 1; attempt <= maxLeaseRetries; attempt++) {
+            Stat stat = new Stat();
+            List<IdRange> ranges;
+            try {
+                ranges = FreeRanges.parse(new String(curatorFramework.getData().storingStatIn(stat).forPath(path)));
+            } catch (KeeperException.NoNodeException e) {
+                try {
+                    curatorFramework.create()
+                            .creatingParentsIfNeeded()
+                            .forPath(path, FreeRanges.format(List.of(range)).getBytes());
+                    return true;
+                } catch (KeeperException.NodeExistsException ignored) {
+                    continue;
+                }
+            }
+
+            if (!FreeRanges.add(ranges, range)) {
+                log.warn("Free list of key '{}' rejected range {}", keyName, range);
+                return false;
+            }
+            try {
+                curatorFramework.setData()
+                        .withVersion(stat.getVersion())
+                        .forPath(path, FreeRanges.format(ranges).getBytes());
+                return true;
+            } catch (KeeperException.BadVersionException | KeeperException.NoNodeException e) {
+                log.debug("Free list conflict for key '{}' (attempt {}/{})", keyName, attempt, maxLeaseRetries);
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public IdRange takeFreeRange(String keyName) throws Exception {
+        String path = freePathOf(keyName);
+        for (int attempt = 1; attempt <= maxLeaseRetries; attempt++) {
+            Stat stat = new Stat();
+            List<IdRange> ranges;
+            try {
+                ranges = FreeRanges.parse(new String(curatorFramework.getData().storingStatIn(stat).forPath(path)));
+            } catch (KeeperException.NoNodeException e) {
+                return null;
+            }
+
+            try {
+                if (ranges.size() <= 1) {
+                    curatorFramework.delete().withVersion(stat.getVersion()).forPath(path);
+                } else {
+                    curatorFramework.setData()
+                            .withVersion(stat.getVersion())
+                            .forPath(path, FreeRanges.format(ranges.subList(1, ranges.size())).getBytes());
+                }
+                return ranges.isEmpty() ? null : ranges.get(0);
+            } catch (KeeperException.BadVersionException | KeeperException.NoNodeException e) {
+                log.debug("Free list conflict for key '{}' (attempt {}/{})", keyName, attempt, maxLeaseRetries);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void clearFreeRanges(String keyName) throws Exception {
+        curatorFramework.delete().quietly().forPath(freePathOf(keyName));
+    }
+
+    @Override
+    public void delete(String keyName) throws Exception {
+        curatorFramework.delete().quietly().forPath(layout.pathOf(keyName));
+        if (layout.isHashed()) {
+            curatorFramework.delete().quietly().forPath(layout.flatPathOf(keyName));
+        }
+    }
+
+    @Override
+    public Set<String> keys() throws Exception {
+        try {
+            return keysAsync().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Long> currentValueAsync(String keyName) {
+        CompletableFuture<Long> current = readAsync(layout.pathOf(keyName));
+        if (!layout.isHashed()) {
+            return current.thenApply(value -> value != null ? value : 0L);
+        }
+        return current.thenCompose(value -> value != null
+                ? CompletableFuture.completedFuture(value)
+                : readAsync(layout.flatPathOf(keyName)).thenApply(flat -> flat != null ? flat : 0L));
+    }
+
+    /**
+     * Layout HASHED: đọc danh sách bucket rồi getChildren tất cả bucket song song,
+     * gộp với các key FLAT chưa migrate
+     */
+    @Override
+    public CompletableFuture<Set<String>> keysAsync() {
+        CompletableFuture<Set<String>> flat = childrenAsync(basePath)
+                .thenApply(ZooKeeperSequenceStore::withoutReserved);
+        if (!layout.isHashed()) {
+            return flat;
+        }
+        // Đi qua các bucket đang có (không phải theo số bucket cấu hình) để không sót key
+        return childrenAsync(layout.getBucketsPath()).thenCompose(bucketNames -> {
+            List<CompletableFuture<List<String>>> buckets = new ArrayList<>(bucketNames.size());
+            for (String bucketName : bucketNames) {
+                buckets.add(childrenAsync(layout.getBucketsPath() + "/" + bucketName));
+            }
+            return CompletableFuture.allOf(buckets.toArray(new CompletableFuture[0]))
+                    .thenCombine(flat, (ignored, keys) -> {
+                        for (CompletableFuture<List<String>> bucket : buckets) {
+                            keys.addAll(bucket.join());
+                        }
+                        return keys;
+                    });
+        });
+    }
+
+    /**
+     * Chuyển key từ fromPath sang znode hiện hành trong một transaction. Nếu znode hiện hành
+     * đã có (node khác tạo trước) thì giữ giá trị lớn hơn để không cấp lại số đã cấp.
+     *
+     * @return false nếu fromPath không tồn tại
+     */
+    boolean moveKey(String keyName, String fromPath) throws Exception {
+        String targetPath = layout.pathOf(keyName);
+        if (fromPath.equals(targetPath)) {
+            return false;
+        }
+
+        for (int attempt = 1; attempt <= maxLeaseRetries; attempt++) {
+            Stat fromStat = new Stat();
+            byte[] data;
+            try {
+                data = curatorFramework.getData().storingStatIn(fromStat).forPath(fromPath);
+            } catch (KeeperException.NoNodeException e) {
+                return false;
+            }
+            ensureBucket(keyName);
+
+            Stat targetStat = new Stat();
+            byte[] targetData = null;
+            try {
+                targetData = curatorFramework.getData().storingStatIn(targetStat).forPath(targetPath);
+            } catch (KeeperException.NoNodeException ignored) {
+                // Chưa có ở vị trí mới
+            }
+
+            try {
+                if (targetData == null) {
+                    curatorFramework.transaction().forOperations(
+                            curatorFramework.transactionOp().create().forPath(targetPath, data),
+                            curatorFramework.transactionOp().delete()
+                                    .withVersion(fromStat.getVersion()).forPath(fromPath));
+                } else {
+                    long merged = Math.max(Long.parseLong(new String(data)), Long.parseLong(new String(targetData)));
+                    curatorFramework.transaction().forOperations(
+                            curatorFramework.transactionOp().setData().withVersion(targetStat.getVersion())
+                                    .forPath(targetPath, String.valueOf(merged).getBytes()),
+                            curatorFramework.transactionOp().delete()
+                                    .withVersion(fromStat.getVersion()).forPath(fromPath));
+                }
+                log.debug("Moved sequence key '{}' from {} to {}", keyName, fromPath, targetPath);
+                return true;
+            } catch (KeeperException.BadVersionException | KeeperException.NodeExistsException
+                     | KeeperException.NoNodeException e) {
+                // Node khác vừa lease / migrate cùng key, hoặc bucket bị xóa: đọc lại
+                readyBuckets.remove(layout.bucketPathOf(keyName));
+                log.debug("Move conflict for key '{}' (attempt {}/{})", keyName, attempt, maxLeaseRetries);
+            }
+        }
+
+        throw new IllegalStateException("Cannot move key '" + keyName + "' to " + targetPath
+                + " after " + maxLeaseRetries + " attempts");
+    }
+
+    /**
+     * Chuyển mọi key chưa đúng vị trí (FLAT hoặc bucket cũ) về znode hiện hành
+     *
+     * @return số key đã chuyển
+     */
+    public int migrateAll() throws Exception {
+        if (!layout.isHashed()) {
+            throw new IllegalStateException("Sequence store uses the flat layout, nothing to migrate");
+        }
+        int moved = 0;
+        for (String keyName : withoutReserved(childrenAsync(basePath).join())) {
+            if (moveKey(keyName, layout.flatPathOf(keyName))) {
+                moved++;
+            }
+        }
+        for (String bucketName : childrenAsync(layout.getBucketsPath()).join()) {
+            String bucketPath = layout.getBucketsPath() + "/" + bucketName;
+            for (String keyName : childrenAsync(bucketPath).join()) {
+                if (moveKey(keyName, bucketPath + "/" + keyName)) {
+                    moved++;
+                }
+            }
+        }
+        return moved;
+    }
+
+    private String freePathOf(String keyName) {
+        return basePath + "/" + FREE_NODE + "/" + keyName;
+    }
+
+    private void ensureBucket(String keyName) throws Exception {
+        String bucketPath = layout.bucketPathOf(keyName);
+        if (readyBuckets.contains(bucketPath)) {
+            return;
+        }
+        try {
+            curatorFramework.create().creatingParentsIfNeeded().forPath(bucketPath);
+        } catch (KeeperException.NodeExistsException ignored) {
+            // Đã có
+        }
+        readyBuckets.add(bucketPath);
+    }
+
+    /**
+     * Giá trị của znode, null nếu không tồn tại
+     */
+    private CompletableFuture<Long> readAsync(String path) {
+        return readAsync(path, new Stat());
+    }
+
+    /**
+     * Giá trị của znode và version vào stat, null nếu không tồn tại
+     */
+    private CompletableFuture<Long> readAsync(String path, Stat stat) {
+        return asyncCuratorFramework.getData()
+                .storingStatIn(stat)
+                .forPath(path)
+                .toCompletableFuture()
+                .thenApply(data -> Long.valueOf(new String(data)))
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof KeeperException.NoNodeException) {
+                        return null;
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    /**
+     * Node con của path, rỗng nếu path không tồn tại
+     */
+    private CompletableFuture<List<String>> childrenAsync(String path) {
+        return asyncCuratorFramework.getChildren()
+                .forPath(path)
+                .toCompletableFuture()
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof KeeperException.NoNodeException) {
+                        return List.of();
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    private static Set<String> withoutReserved(List<String> children) {
+        Set<String> keys = new HashSet<>(children);
+        // Bỏ các node metadata (ví dụ _snowflake, _epochs, _buckets, _free)
+        keys.removeIf(key -> key.startsWith(RESERVED_PREFIX));
+        return keys;
+    }
+
+    /**
+     * Kết quả của {@link #updateAll}
+     *
+     * @param zxid zxid của transaction, {@link IdRange#NO_VERSION} nếu không ghi gì
+     */
+    private record Updated(Map<String, Long> previous, long zxid) {
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.commonserviceofficial.sequence.strict;
+
+import com.example.commonserviceofficial.sequence.metrics.SequenceMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cấp số liên tục, không khoảng trống cho key STRICT: reserve → confirm / release.
+ *
+ * Mỗi key có một hàng đợi thao tác. Một committer duy nhất cho mỗi key lấy tất cả thao tác
+ * đang chờ, áp dụng lên {@link StrictState} đọc từ znode, rồi ghi lại bằng một lần setData
+ * có kiểm tra version (group commit). Nhờ vậy một lần ghi ZooKeeper phục vụ hàng trăm thao tác
+ * đồng thời.
+ *
+ * Mỗi nhóm ghi kèm commit id (node id + số thứ tự) vào trạng thái. BadVersion / NodeExists hoặc mất
+ * kết nối khi ghi không chắc là node khác đã ghi trước: có thể chính lần ghi của mình đã thành công
+ * nhưng mất response. Vì vậy đọc lại, thấy commit id của mình thì trả kết quả của lần ghi đó, không
+ * thì áp dụng lại cả nhóm (áp dụng hai lần sẽ để lại khoảng trống vĩnh viễn).
+ */
+@Slf4j
+public class StrictSequencer {
+
+    // Số thao tác tối đa trong một lần ghi
+    private static final int MAX_BATCH = 1000;
+
+    @FunctionalInterface
+    private interface Operation {
+        long apply(StrictState state);
+    }
+
+    private record Request(Operation operation, CompletableFuture<Long> result) {
+    }
+
+    private static final class KeyQueue {
+        final Queue<Request> requests = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean running = new AtomicBoolean();
+    }
+
+    private final CuratorFramework curatorFramework;
+    private final String strictPath;
+    private final long reservationTimeoutMs;
+    private final int maxPending;
+    private final int maxRetries;
+    private final Executor executor;
+    private final SequenceMetrics metrics;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final AtomicLong commitSeq = new AtomicLong();
+    private final ConcurrentHashMap<String, KeyQueue> queues = new ConcurrentHashMap<>();
+
+    public StrictSequencer(CuratorFramework curatorFramework, String strictPath, long reservationTimeoutMs,
+                           int maxPending, int maxRetries, Executor executor, SequenceMetrics metrics) {
+        this.curatorFramework = curatorFramework;
+        this.strictPath = strictPath;
+        this.reservationTimeoutMs = reservationTimeoutMs;
+        this.maxPending = maxPending;
+        this.maxRetries = maxRetries;
+        this.executor = executor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Giữ số nhỏ nhất còn trống, phải confirm hoặc release trước reservationTimeoutMs
+     */
+    public CompletableFuture<Long> reserve(String keyName) {
+        long expiresAt = System.currentTimeMillis() + reservationTimeoutMs;
+        return submit(keyName, state -> state.reserve(expiresAt, maxPending));
+    }
+
+    /**
+     * Reserve và confirm ngay trong cùng một lần ghi
+     */
+    public CompletableFuture<Long> next(String keyName) {
+        long expiresAt = System.currentTimeMillis() + reservationTimeoutMs;
+        return submit(keyName, state -> {
+            long value = state.reserve(expiresAt, maxPending);
+            state.confirm(value);
+            return value;
+        });
+    }
+
+    public CompletableFuture<Long> confirm(String keyName, long value) {
+        return submit(keyName, state -> {
+            state.confirm(value);
+            return value;
+        });
+    }
+
+    /**
+     * Trả số đã reserve lại để cấp cho lần reserve tiếp theo
+     */
+    public CompletableFuture<Long> release(String keyName, long value) {
+        return submit(keyName, state -> {
+            state.release(value);
+            return value;
+        });
+    }
+
+    /**
+     * Đặt số lớn nhất đã cấp về value, bỏ mọi số đang reserve / đã release
+     */
+    public CompletableFuture<Long> reset(String keyName, long value) {
+        return submit(keyName, state -> {
+            state.reset(value);
+            return value;
+        });
+    }
+
+    /**
+     * Nâng số lớn nhất đã cấp lên ít nhất value, không bao giờ hạ (import)
+     *
+     * @return 1 nếu đã nâng, 0 nếu key đã có số lớn hơn hoặc bằng
+     */
+    public CompletableFuture<Long> raise(String keyName, long value) {
+        return submit(keyName, state -> state.raise(value) ? 1L : 0L);
+    }
+
+    /**
+     * Số lớn nhất đã cấp (0 nếu key chưa tồn tại)
+     */
+    public long current(String keyName) throws Exception {
+        StrictState state = readState(pathOf(keyName), new Stat());
+        return state != null ? state.getHigh() : 0L;
+    }
+
+    /**
+     * Các key STRICT đang có trạng thái trên ZooKeeper
+     */
+    public List<String> keys() throws Exception {
+        return metrics.store(SequenceMetrics.Operation.READ, () -> {
+            try {
+                return curatorFramework.getChildren().forPath(strictPath);
+            } catch (KeeperException.NoNodeException e) {
+                return List.of();
+            }
+        });
+    }
+
+    public void delete(String keyName) throws Exception {
+        metrics.store(SequenceMetrics.Operation.WRITE, () -> {
+            curatorFramework.delete().quietly().forPath(pathOf(keyName));
+            return null;
+        });
+    }
+
+    private CompletableFuture<Long> submit(String keyName, Operation operation) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        KeyQueue queue = queues.computeIfAbsent(keyName, k -> new KeyQueue());
+        queue.requests.add(new Request(operation, result));
+        if (queue.running.compareAndSet(false, true)) {
+            executor.execute(() -> drain(keyName, queue));
+        }
+        return result;
+    }
+
+    private void drain(String keyName, KeyQueue queue) {
+        while (true) {
+            List<Request> batch = new ArrayList<>();
+            Request request;
+            while (batch.size() < MAX_BATCH && (request = queue.requests.poll()) != null) {
+                batch.add(request);
+            }
+
+            if (batch.isEmpty()) {
+                queue.running.set(false);
+                // Thao tác đến sau lần poll cuối nhưng trước khi nhả cờ
+                if (queue.requests.isEmpty() || !queue.running.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            commit(keyName, batch);
+        }
+    }
+
+    private void commit(String keyName, List<Request> batch) {
+        String path = pathOf(keyName);
+        long commit = commitSeq.incrementAndGet();
+        // Kết quả của lần ghi gần nhất chưa biết có thành công hay không
+        Object[] sent = null;
+        try {
+            for (int attempt = 1; attempt <= maxRetries; attempt++) {
+                Stat stat = new Stat();
+                StrictState state = readState(path, stat);
+                boolean exists = state != null;
+                if (sent != null && exists && state.hasCommit(nodeId, commit)) {
+                    log.debug("Strict commit for key '{}' was applied, response was lost", keyName);
+                    completeAll(batch, sent);
+                    return;
+                }
+                if (!exists) {
+                    state = new StrictState();
+                }
+
+                state.expire(System.currentTimeMillis());
+                Object[] results = new Object[batch.size()];
+                for (int i = 0; i < batch.size(); i++) {
+                    try {
+                        results[i] = batch.get(i).operation().apply(state);
+                    } catch (RuntimeException e) {
+                        // Thao tác lỗi không làm hỏng cả nhóm
+                        results[i] = e;
+                    }
+                }
+
+                state.recordCommit(nodeId, commit);
+                byte[] data = objectMapper.writeValueAsBytes(state);
+                sent = results;
+                try {
+                    if (!writeState(path, exists ? stat.getVersion() : null, data)) {
+                        log.debug("Strict commit conflict for key '{}' (attempt {}/{})", keyName, attempt, maxRetries);
+                        continue;
+                    }
+                } catch (KeeperException.ConnectionLossException | KeeperException.SessionExpiredException e) {
+                    log.debug("Strict commit outcome unknown for key '{}' (attempt {}/{})", keyName, attempt, maxRetries, e);
+                    continue;
+                }
+
+                log.debug("Committed {} strict operations for key '{}', high={}", batch.size(), keyName, state.getHigh());
+                completeAll(batch, results);
+                return;
+            }
+            failAll(batch, new IllegalStateException("Cannot commit strict sequence for key '" + keyName
+                    + "' after " + maxRetries + " attempts"));
+        } catch (Exception e) {
+            log.error("Failed to commit strict sequence for key: {}", keyName, e);
+            failAll(batch, e);
+        }
+    }
+
+    private static void completeAll(List<Request> batch, Object[] results) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (results[i] instanceof RuntimeException error) {
+                batch.get(i).result().completeExceptionally(error);
+            } else {
+                batch.get(i).result().complete((Long) results[i]);
+            }
+        }
+    }
+
+    private static void failAll(List<Request> batch, Exception error) {
+        batch.forEach(request -> request.result().completeExceptionally(error));
+    }
+
+    /**
+     * Đọc trạng thái của key (đo như lời gọi store)
+     *
+     * @return null nếu key chưa tồn tại
+     */
+    private StrictState readState(String path, Stat stat) throws Exception {
+        byte[] data = metrics.store(SequenceMetrics.Operation.READ, () -> {
+            try {
+                return curatorFramework.getData().storingStatIn(stat).forPath(path);
+            } catch (KeeperException.NoNodeException e) {
+                return null;
+            }
+        });
+        return data != null ? objectMapper.readValue(data, StrictState.class) : null;
+    }
+
+    /**
+     * Ghi trạng thái có kiểm tra version, version null thì tạo node mới (package-private để test
+     * giả lập mất response)
+     *
+     * @return false nếu đã có lần ghi khác trước (BadVersion / NodeExists)
+     */
+    boolean writeState(String path, Integer version, byte[] data) throws Exception {
+        return metrics.store(SequenceMetrics.Operation.WRITE, () -> {
+            try {
+                if (version != null) {
+                    curatorFramework.setData().withVersion(version).forPath(path, data);
+                } else {
+                    curatorFramework.create().creatingParentsIfNeeded().forPath(path, data);
+                }
+                return true;
+            } catch (KeeperException.BadVersionException | KeeperException.NodeExistsException e) {
+                return false;
+            }
+        });
+    }
+
+    private String pathOf(String keyName) {
+        return strictPath + "/" + keyName;
+    }
+}
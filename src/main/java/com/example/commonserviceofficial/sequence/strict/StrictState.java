@@ -0,0 +1,159 @@
+package com.example.commonserviceofficial.sequence.strict;
+
+import com.example.commonserviceofficial.sequence.SequenceValidationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Trạng thái của một key STRICT, lưu nguyên trong một znode.
+ *
+ * <ul>
+ *   <li>high: số lớn nhất đã cấp (reserve) — mọi số trong [1..high] đã confirm, đang reserve hoặc đã release</li>
+ *   <li>released: số đã release (hoặc reserve quá hạn), được cấp lại trước khi tăng high</li>
+ *   <li>pending: số đang reserve → thời điểm hết hạn (epoch milliseconds)</li>
+ *   <li>commits: node → số thứ tự lần commit gần nhất của node đó, để biết một lần ghi bị mất response
+ *       đã được áp dụng chưa (tối đa MAX_COMMIT_NODES node, node lâu không commit bị bỏ trước)</li>
+ * </ul>
+ *
+ * Không thread-safe: chỉ committer của key thao tác trên một bản đọc từ ZooKeeper.
+ */
+public final class StrictState {
+
+    private static final int MAX_COMMIT_NODES = 64;
+
+    private long high;
+    private TreeSet<Long> released = new TreeSet<>();
+    private Map<Long, Long> pending = new HashMap<>();
+    private LinkedHashMap<String, Long> commits = new LinkedHashMap<>();
+
+    public StrictState() {
+    }
+
+    public StrictState(long high) {
+        this.high = high;
+    }
+
+    /**
+     * Cấp số nhỏ nhất còn trống: số đã release trước, sau đó high + 1
+     */
+    public long reserve(long expiresAt, int maxPending) {
+        if (pending.size() >= maxPending) {
+            throw new IllegalStateException("Too many pending reservations (" + pending.size() + ")");
+        }
+        Long reused = released.pollFirst();
+        long value = reused != null ? reused : ++high;
+        pending.put(value, expiresAt);
+        return value;
+    }
+
+    public void confirm(long value) {
+        if (pending.remove(value) == null) {
+            throw new SequenceValidationException("Value " + value + " is not reserved or the reservation expired");
+        }
+    }
+
+    public void release(long value) {
+        if (pending.remove(value) == null) {
+            throw new SequenceValidationException("Value " + value + " is not reserved or the reservation expired");
+        }
+        free(value);
+    }
+
+    /**
+     * Reserve đã quá hạn (node giữ số bị chết hoặc quên confirm) được trả về released
+     */
+    public void expire(long now) {
+        pending.entrySet().removeIf(entry -> {
+            if (entry.getValue() <= now) {
+                free(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Nâng high lên value (import), giữ nguyên các số đang reserve / đã release
+     *
+     * @return false nếu high đã lớn hơn hoặc bằng value
+     */
+    public boolean raise(long value) {
+        if (value <= high) {
+            return false;
+        }
+        high = value;
+        return true;
+    }
+
+    public void reset(long value) {
+        high = value;
+        released.clear();
+        pending.clear();
+    }
+
+    /**
+     * Ghi nhận lần commit commitSeq của node (cùng lần ghi với các thao tác của nhóm)
+     */
+    public void recordCommit(String nodeId, long commitSeq) {
+        // Đưa node về cuối: thứ tự là thứ tự commit gần nhất
+        commits.remove(nodeId);
+        commits.put(nodeId, commitSeq);
+        Iterator<String> eldest = commits.keySet().iterator();
+        while (commits.size() > MAX_COMMIT_NODES) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Lần commit commitSeq của node đã nằm trong trạng thái này chưa
+     */
+    public boolean hasCommit(String nodeId, long commitSeq) {
+        Long last = commits.get(nodeId);
+        return last != null && last >= commitSeq;
+    }
+
+    private void free(long value) {
+        released.add(value);
+        // Số ở đỉnh được trả lại cho high, giữ released nhỏ
+        while (!released.isEmpty() && released.last() == high) {
+            released.pollLast();
+            high--;
+        }
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public void setHigh(long high) {
+        this.high = high;
+    }
+
+    public TreeSet<Long> getReleased() {
+        return released;
+    }
+
+    public void setReleased(TreeSet<Long> released) {
+        this.released = released;
+    }
+
+    public Map<Long, Long> getPending() {
+        return pending;
+    }
+
+    public void setPending(Map<Long, Long> pending) {
+        this.pending = pending;
+    }
+
+    public LinkedHashMap<String, Long> getCommits() {
+        return commits;
+    }
+
+    public void setCommits(LinkedHashMap<String, Long> commits) {
+        this.commits = commits;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.commonserviceofficial.sequence.striped;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Các stripe của một key STRIPED: key được chia thành K counter con {key}#{i} trên store,
+ * stripe i cấp các số thuộc lớp đồng dư i + 1 (mod K):
+ * <pre>
+ *   id = (local - 1) * K + i + 1      (local = 1, 2, 3 ... của counter con)
+ * </pre>
+ * nên các stripe không bao giờ trùng số. Mỗi node chọn ngẫu nhiên một stripe khi khởi động và
+ * chỉ lease trên stripe đó, nên các node ghi vào các znode khác nhau thay vì tranh nhau một znode
+ * (giống các cell của LongAdder). Giá trị duy nhất nhưng không tăng dần trên toàn cluster.
+ */
+public final class Stripes {
+
+    /**
+     * Ngăn cách key gốc và số thứ tự stripe trong key của counter con
+     */
+    public static final char SEPARATOR = '#';
+
+    private final String keyName;
+    private final int count;
+    private final String[] stripeKeys;
+
+    private volatile int preferred;
+
+    public Stripes(String keyName, int count) {
+        this(keyName, count, ThreadLocalRandom.current().nextInt(count));
+    }
+
+    Stripes(String keyName, int count, int preferred) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Stripe count of key '" + keyName + "' must be positive: " + count);
+        }
+        this.keyName = keyName;
+        this.count = count;
+        this.preferred = preferred;
+        this.stripeKeys = new String[count];
+        for (int i = 0; i < count; i++) {
+            stripeKeys[i] = keyName + SEPARATOR + i;
+        }
+    }
+
+    public String getKeyName() {
+        return keyName;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Stripe node này đang lease
+     */
+    public int preferred() {
+        return preferred;
+    }
+
+    /**
+     * Chuyển sang stripe kế tiếp (stripe hiện tại không lease được)
+     */
+    public void rotate(int failed) {
+        if (preferred == failed) {
+            preferred = (failed + 1) % count;
+        }
+    }
+
+    public String stripeKey(int stripe) {
+        return stripeKeys[stripe];
+    }
+
+    /**
+     * ID của giá trị thứ local (bắt đầu từ 1) trên stripe
+     */
+    public long idOf(int stripe, long local) {
+        return (local - 1) * count + stripe + 1;
+    }
+
+    /**
+     * Giá trị của mọi counter con để số tiếp theo của mọi stripe đều lớn hơn value (reset)
+     */
+    public long localFloor(long value) {
+        return value <= 0 ? 0 : (value + count - 1) / count;
+    }
+
+    /**
+     * Key gốc nếu keyName là key của counter con, ngược lại trả về chính keyName
+     */
+    public static String baseKeyOf(String keyName) {
+        int separator = keyName.lastIndexOf(SEPARATOR);
+        if (separator <= 0 || separator == keyName.length() - 1) {
+            return keyName;
+        }
+        for (int i = separator + 1; i < keyName.length(); i++) {
+            if (!Character.isDigit(keyName.charAt(i))) {
+                return keyName;
+            }
+        }
+        return keyName.substring(0, separator);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.commonserviceofficial.sequence.warmup;
+
+import com.example.commonserviceofficial.sequence.config.SequenceProperties;
+import com.example.commonserviceofficial.sequence.service.SequenceGeneratorService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Chuẩn bị các key hay dùng khi khởi động: sequence.warmup.keys và top-N key của lần chạy trước.
+ *
+ * Chạy như ApplicationRunner nên Spring Boot chỉ chuyển readiness sang ACCEPTING_TRAFFIC sau khi
+ * xong (hoặc hết timeout). Các key được chuẩn bị song song, lỗi của một key chỉ ghi log.
+ * Khi dừng, top-N key dùng nhiều nhất (theo tần suất của cache) được ghi vào hot-keys-file.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SequenceWarmup implements ApplicationRunner {
+
+    private final SequenceProperties sequenceProperties;
+
+    private final SequenceGeneratorService sequenceGeneratorService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SequenceProperties.Warmup warmup = sequenceProperties.getWarmup();
+        Set<String> keys = new LinkedHashSet<>(warmup.getKeys());
+        if (warmup.getTopN() > 0) {
+            keys.addAll(readHotKeys(Paths.get(warmup.getHotKeysFile()), warmup.getTopN()));
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(warmup.getParallelism(), keys.size())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "sequence-warmup-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        long startedAt = System.currentTimeMillis();
+        AtomicInteger warmed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(keys.size());
+        for (String keyName : keys) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    if (sequenceGeneratorService.warmUp(keyName)) {
+                        warmed.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    log.warn("Failed to warm up sequence key '{}': {}", keyName, e.getMessage());
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).get(warmup.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Sequence warm-up did not finish within {} ms, remaining keys load on first use",
+                    warmup.getTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Sequence warm-up failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Warmed up {} of {} sequence keys ({} failed) in {} ms",
+                warmed.get(), keys.size(), failed.get(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * Ghi top-N key dùng nhiều nhất cho lần khởi động sau (chạy trước khi service đóng cache)
+     */
+    @PreDestroy
+    public void saveHotKeys() {
+        SequenceProperties.Warmup warmup = sequenceProperties.getWarmup();
+        if (warmup.getTopN() <= 0) {
+            return;
+        }
+        Path file = Paths.get(warmup.getHotKeysFile());
+        List<String> keys = sequenceGeneratorService.hottestKeys(warmup.getTopN());
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tempFile, keys, StandardCharsets.UTF_8);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved {} hot sequence keys to {}", keys.size(), file);
+        } catch (IOException e) {
+            log.warn("Failed to save hot sequence keys to {}", file, e);
+        }
+    }
+
+    private static List<String> readHotKeys(Path file, int limit) {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty())
+                    .limit(limit)
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Failed to read hot sequence keys from {}", file, e);
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.commonserviceofficial.sequence.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chạy {@link SequenceGeneratorBenchmark} với từng số thread và ghi toàn bộ kết quả vào một file JSON
+ * (định dạng JSON của JMH: ops/s, phân vị latency, params policy/keys, số thread).
+ *
+ * Tham số: arg[0] là file kết quả (mặc định target/benchmarks/sequence-generator.json).
+ * System property: benchmark.threads (mặc định 1,4,16), benchmark.policies, benchmark.keys
+ * để chạy một phần ma trận.
+ */
+public final class SequenceBenchmarks {
+
+    private SequenceBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path output = Paths.get(args.length > 0 ? args[0] : "target/benchmarks/sequence-generator.json");
+        String policies = System.getProperty("benchmark.policies", "");
+        String keys = System.getProperty("benchmark.keys", "");
+
+        List<RunResult> results = new ArrayList<>();
+        for (String threads : System.getProperty("benchmark.threads", "1,4,16").split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(SequenceGeneratorBenchmark.class.getName())
+                    .threads(Integer.parseInt(threads.trim()));
+            if (!policies.isBlank()) {
+                options.param("policy", policies.split(","));
+            }
+            if (!keys.isBlank()) {
+                options.param("keys", keys.split(","));
+            }
+            results.addAll(new Runner(options.build()).run());
+        }
+
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(output), true, StandardCharsets.UTF_8)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.println("Benchmark results written to " + output.toAbsolutePath());
+    }
+}
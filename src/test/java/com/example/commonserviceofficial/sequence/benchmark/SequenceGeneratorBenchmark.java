@@ -0,0 +1,128 @@
+package com.example.commonserviceofficial.sequence.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.example.commonserviceofficial.sequence.config.SequenceProperties;
+import com.example.commonserviceofficial.sequence.service.SequenceGeneratorService;
+import com.example.commonserviceofficial.sequence.store.ZooKeeperSequenceStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.test.TestingServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark generateNext trên ZooKeeper chạy trong process (TestingServer của curator-test).
+ *
+ * policy: "segment", "striped" hoặc "cached:N" (mode CACHED, sync với ZooKeeper mỗi N lần generate).
+ * keys: số key khác nhau, mỗi lần gọi chọn ngẫu nhiên một key.
+ * Số thread do {@link SequenceBenchmarks} truyền vào khi chạy.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+public class SequenceGeneratorBenchmark {
+
+    @Param({"segment", "striped", "cached:1", "cached:10", "cached:1000"})
+    public String policy;
+
+    @Param({"1", "100", "10000"})
+    public int keys;
+
+    private TestingServer server;
+    private CuratorFramework curatorFramework;
+    private SequenceGeneratorService service;
+    private String[] keyNames;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Log của ZooKeeper/Curator làm sai lệch kết quả
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        server = new TestingServer(true);
+        curatorFramework = CuratorFrameworkFactory.newClient(server.getConnectString(),
+                new ExponentialBackoffRetry(100, 3));
+        curatorFramework.start();
+        curatorFramework.blockUntilConnected(30, TimeUnit.SECONDS);
+
+        SequenceProperties properties = propertiesOf(policy);
+        ZooKeeperSequenceStore store = new ZooKeeperSequenceStore(curatorFramework,
+                properties.getZookeeper().getBasePath(), properties.getSegment().getMaxLeaseRetries());
+        store.start();
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("curatorFramework", curatorFramework);
+        service = new SequenceGeneratorService(properties, store, beanFactory.getBeanProvider(CuratorFramework.class),
+                beanFactory.getBeanProvider(MeterRegistry.class));
+        service.init();
+
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "BENCH-" + i;
+            // Tạo key trước để lần đo đầu không tính chi phí tạo znode
+            service.generateNext(keyNames[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (service != null) {
+            service.destroy();
+        }
+        if (curatorFramework != null) {
+            curatorFramework.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long throughput() {
+        return service.generateNext(randomKey());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long latency() {
+        return service.generateNext(randomKey());
+    }
+
+    private String randomKey() {
+        return keys == 1 ? keyNames[0] : keyNames[ThreadLocalRandom.current().nextInt(keys)];
+    }
+
+    static SequenceProperties propertiesOf(String policy) {
+        SequenceProperties properties = new SequenceProperties();
+        if (policy.startsWith("cached:")) {
+            int syncInterval = Integer.parseInt(policy.substring("cached:".length()));
+            properties.setMode(SequenceProperties.Mode.CACHED);
+            properties.getZookeeper().setSyncInterval(syncInterval);
+            properties.getZookeeper().setSyncThreshold(syncInterval);
+        } else {
+            properties.setMode(SequenceProperties.Mode.valueOf(policy.toUpperCase()));
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.commonserviceofficial.sequence.client;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequenceClientTest {
+
+    @Test
+    void issuesUniqueIdsFromLeasedBlocks() throws Exception {
+        SequenceClientProperties properties = new SequenceClientProperties();
+        properties.setBlockSize(100);
+        AtomicLong server = new AtomicLong();
+        AtomicInteger leases = new AtomicInteger();
+        ExecutorService network = Executors.newSingleThreadExecutor();
+        SequenceClient client = new SequenceClient(properties, (keyName, count) -> CompletableFuture.supplyAsync(() -> {
+            leases.incrementAndGet();
+            long end = server.addAndGet(count);
+            // Server trả về phần còn lại của segment và đoạn mới lease
+            return List.of(new IdRange(end - count + 1, end - count / 2), new IdRange(end - count / 2 + 1, end));
+        }, network));
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tasks.add(callers.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    ids.add(client.nextId("ORDER_ID"));
+                }
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        callers.shutdown();
+        network.shutdown();
+
+        assertEquals(8000, ids.size());
+        // Mỗi lần lease 100 số, prefetch có thể lease trước tối đa một block
+        assertTrue(leases.get() >= 80 && leases.get() <= 81, "leases " + leases.get());
+    }
+
+    @Test
+    void failsWhenServerCannotLease() {
+        SequenceClientProperties properties = new SequenceClientProperties();
+        SequenceClient client = new SequenceClient(properties,
+                (keyName, count) -> CompletableFuture.failedFuture(new IllegalStateException("503")));
+
+        assertThrows(IllegalStateException.class, () -> client.nextId("ORDER_ID"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.commonserviceofficial.sequence.format;
+
+import com.example.commonserviceofficial.sequence.config.SequenceProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NumberTemplateTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+
+    @Test
+    void formatsDatePartsAndPaddedSequence() {
+        NumberTemplate template = new NumberTemplate("INVOICE", "INV-{yyyy}-{MM}-{seq:6}",
+                SequenceProperties.Rollover.MONTHLY, ZONE, null);
+        NumberTemplate.Day day = template.day(millis(2026, 10, 17, 9));
+
+        assertEquals("INV-2026-10-000123", template.format(day, 123));
+        assertEquals("INV-2026-10-1234567", template.format(day, 1_234_567));
+        assertEquals("INVOICE@202610", day.periodKey());
+    }
+
+    @Test
+    void rolloverChangesPeriodKeyAndReportsPreviousOne() {
+        List<String> rolledOver = new ArrayList<>();
+        NumberTemplate template = new NumberTemplate("RECEIPT", "R{yy}{MM}{dd}{seq:4}",
+                SequenceProperties.Rollover.DAILY, ZONE, rolledOver::add);
+
+        NumberTemplate.Day first = template.day(millis(2026, 10, 17, 23));
+        assertSame(first, template.day(millis(2026, 10, 17, 23) + 1000));
+        NumberTemplate.Day next = template.day(millis(2026, 10, 18, 0));
+
+        assertEquals("RECEIPT@20261017", first.periodKey());
+        assertEquals("RECEIPT@20261018", next.periodKey());
+        assertEquals("R2610180001", template.format(next, 1));
+        assertEquals(List.of("RECEIPT@20261017"), rolledOver);
+    }
+
+    @Test
+    void templateWithoutSequenceIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new NumberTemplate("BAD", "INV-{yyyy}",
+                SequenceProperties.Rollover.NONE, ZONE, null));
+    }
+
+    private static long millis(int year, int month, int day, int hour) {
+        return ZonedDateTime.of(year, month, day, hour, 0, 0, 0, ZONE).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.commonserviceofficial.sequence.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LeaseJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoversRemainingRangeAfterReopen() throws Exception {
+        Path file = dir.resolve("journal.dat");
+        LeaseJournal journal = new LeaseJournal(file, 16, 10, false);
+        journal.open();
+        journal.recordLease("ORDER", 1, 1000);
+        for (long value = 1; value <= 25; value++) {
+            journal.issued("ORDER", value);
+        }
+        journal.close();
+
+        LeaseJournal reopened = new LeaseJournal(file, 16, 10, false);
+        reopened.open();
+        LeaseJournal.Record record = reopened.recover("ORDER");
+
+        // Checkpoint luôn ≥ giá trị đã cấp, không bao giờ cấp lại số ≤ 25
+        assertEquals(1, record.start());
+        assertEquals(1000, record.end());
+        assertTrue(record.checkpoint() >= 25 && record.checkpoint() < 35);
+        assertNull(reopened.recover("ORDER"));
+        reopened.close();
+    }
+
+    @Test
+    void staleLeaseIsIgnoredAndClearedKeyIsNotRecovered() throws Exception {
+        Path file = dir.resolve("journal.dat");
+        LeaseJournal journal = new LeaseJournal(file, 16, 10, false);
+        journal.open();
+        journal.recordLease("A", 1, 100);
+        journal.issued("A", 100);
+        journal.recordLease("A", 101, 200);
+        journal.issued("A", 150);
+        journal.recordLease("A", 101, 200);
+        journal.recordLease("B", 1, 100);
+        journal.clear("B");
+        journal.close();
+
+        LeaseJournal reopened = new LeaseJournal(file, 16, 10, false);
+        reopened.open();
+        LeaseJournal.Record record = reopened.recover("A");
+        assertEquals(101, record.start());
+        assertTrue(record.checkpoint() >= 150);
+        assertNull(reopened.recover("B"));
+        reopened.close();
+    }
+
+    @Test
+    void clearingAnOlderLeaseKeepsTheNewerOne() throws Exception {
+        Path file = dir.resolve("journal.dat");
+        LeaseJournal journal = new LeaseJournal(file, 16, 10, false);
+        journal.open();
+        long old = journal.recordLease("A", 1, 100);
+        // Key bị reset: slot cũ bị xóa, buffer mới ghi đoạn của dãy mới
+        journal.clear("A");
+        long current = journal.recordLease("A", 1, 50);
+        journal.clear("A", old);
+        journal.close();
+
+        LeaseJournal reopened = new LeaseJournal(file, 16, 10, false);
+        reopened.open();
+        assertTrue(current > old);
+        assertEquals(50, reopened.recover("A").end());
+        reopened.close();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.commonserviceofficial.sequence.metrics;
+
+import com.example.commonserviceofficial.sequence.store.StoreStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SequenceMetricsTest {
+
+    @Test
+    void capsKeyTagsAndFoldsStripesAndPeriods() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SequenceMetrics metrics = new SequenceMetrics(registry, "zookeeper", 2);
+
+        metrics.issued("ORDER#3", 1);
+        metrics.issued("ORDER#7", 1);
+        metrics.issued("INVOICE@202610", 5);
+        metrics.issued("tenant-1:CUSTOMER", 1);
+        metrics.issued("tenant-2:CUSTOMER", 1);
+
+        assertEquals(2, registry.get("sequence.issued").tag("key", "ORDER").counter().count());
+        assertEquals(5, registry.get("sequence.issued").tag("key", "INVOICE").counter().count());
+        assertEquals(2, registry.get("sequence.issued").tag("key", SequenceMetrics.OTHER_KEY).counter().count());
+        assertEquals(3, registry.find("sequence.issued").counters().size());
+    }
+
+    @Test
+    void recordsStoreLatencyByOutcome() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SequenceMetrics metrics = new SequenceMetrics(registry, "zookeeper", 10);
+
+        assertEquals(42L, metrics.store(SequenceMetrics.Operation.READ, () -> 42L));
+        assertThrows(IOException.class, () -> metrics.store(SequenceMetrics.Operation.WRITE, () -> {
+            throw new IOException("connection loss");
+        }));
+
+        assertEquals(1, registry.get("sequence.store.latency")
+                .tags("store", "zookeeper", "operation", "read", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("sequence.store.latency")
+                .tags("operation", "write", "outcome", "error").timer().count());
+        assertEquals(0, registry.get("sequence.store.latency")
+                .tags("operation", "write", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void exposesStoreStatus() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SequenceMetrics metrics = new SequenceMetrics(registry, "zookeeper", 10);
+        AtomicReference<StoreStatus> status = new AtomicReference<>(StoreStatus.CONNECTED);
+        metrics.monitorStore(status::get);
+
+        assertEquals(1, registry.get("sequence.store.state").tags("store", "zookeeper", "state", "connected")
+                .gauge().value());
+        assertEquals(0, registry.get("sequence.store.state").tag("state", "suspended").gauge().value());
+
+        status.set(new StoreStatus(StoreStatus.State.SUSPENDED, System.currentTimeMillis(), 1500, 2));
+
+        assertEquals(0, registry.get("sequence.store.state").tag("state", "connected").gauge().value());
+        assertEquals(1, registry.get("sequence.store.state").tag("state", "suspended").gauge().value());
+        assertEquals(1500, registry.get("sequence.store.degraded.time").timeGauge().value(TimeUnit.MILLISECONDS));
+        assertEquals(2, registry.get("sequence.store.degraded.count").gauge().value());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.commonserviceofficial.sequence.segment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentBufferTest {
+
+    @Test
+    void closeHandsBackStandbyThenRestOfCurrent() {
+        SegmentBuffer buffer = new SegmentBuffer("ORDER", new SegmentSizer(10, 10, 10, 60_000, 0.5));
+        Segment first = new Segment(1, 10);
+        CompletableFuture<Segment> initial = CompletableFuture.completedFuture(first);
+        assertTrue(buffer.swap(null, initial, first));
+        CompletableFuture<Segment> standby = buffer.standby(() -> CompletableFuture.completedFuture(new Segment(11, 20)));
+        first.next();
+        first.next();
+
+        List<IdRange> unused = new ArrayList<>();
+        buffer.close(unused::add);
+
+        assertEquals(List.of(new IdRange(11, 20), new IdRange(3, 10)), unused);
+        assertTrue(buffer.isClosed());
+        // Thread đang giữ buffer cũ không cấp thêm được số nào
+        assertEquals(Segment.EXHAUSTED, first.next());
+        assertEquals(Segment.EXHAUSTED, buffer.getCurrent().next());
+        assertFalse(buffer.swap(first, standby, standby.join()));
+    }
+
+    @Test
+    void closeWaitsForStandbyInFlight() {
+        SegmentBuffer buffer = new SegmentBuffer("ORDER", new SegmentSizer(10, 10, 10, 60_000, 0.5));
+        CompletableFuture<Segment> lease = new CompletableFuture<>();
+        buffer.standby(() -> lease);
+
+        List<IdRange> unused = new ArrayList<>();
+        buffer.close(unused::add);
+        assertTrue(unused.isEmpty());
+
+        lease.complete(new Segment(1, 100));
+        assertEquals(List.of(new IdRange(1, 100)), unused);
+    }
+}
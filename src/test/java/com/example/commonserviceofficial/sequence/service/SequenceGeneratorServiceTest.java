@@ -0,0 +1,273 @@
+package com.example.commonserviceofficial.sequence.service;
+
+import com.example.commonserviceofficial.sequence.config.SequenceProperties;
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import com.example.commonserviceofficial.sequence.store.StoreUnavailableException;
+import com.example.commonserviceofficial.sequence.store.ZooKeeperSequenceStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Các node SequenceGeneratorService dùng chung một ZooKeeper chạy trong process (curator-test):
+ * không cấp trùng số qua reset, loại key khỏi cache, trả số khi dừng node và generateMulti lỗi.
+ */
+class SequenceGeneratorServiceTest {
+
+    private static final String KEY = "ORDER";
+
+    private TestingServer server;
+    private CuratorFramework curatorFramework;
+    private final List<SequenceGeneratorService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new TestingServer(true);
+        curatorFramework = CuratorFrameworkFactory.newClient(server.getConnectString(),
+                new ExponentialBackoffRetry(100, 3));
+        curatorFramework.start();
+        curatorFramework.blockUntilConnected(30, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        services.forEach(SequenceGeneratorService::destroy);
+        curatorFramework.close();
+        server.close();
+    }
+
+    @Test
+    void valuesStayUniqueAcrossResetOnTwoNodes() throws Exception {
+        SequenceGeneratorService first = startNode(segmentProperties());
+        SequenceGeneratorService second = startNode(segmentProperties());
+        generate(first, 10);
+        generate(second, 10);
+
+        // Về 0 rồi lease lại tới đúng cuối các đoạn cũ: đoạn cũ không được cấp tiếp hay trả lại
+        first.resetSequence(KEY, 0);
+        await(() -> second.getKeyCacheStats().size() == 0);
+
+        Set<Long> issued = new HashSet<>();
+        for (long value : generate(first, 150)) {
+            assertTrue(issued.add(value), "duplicate " + value);
+        }
+        for (long value : generate(second, 150)) {
+            assertTrue(issued.add(value), "duplicate " + value);
+        }
+        // first: [1..100], [101..200]; second: [201..300], [301..400]
+        assertEquals(300, issued.size());
+        assertEquals(350, issued.stream().mapToLong(Long::longValue).max().orElse(0));
+    }
+
+    @Test
+    void evictedSegmentsAreReturnedWithoutDuplicates() throws Exception {
+        SequenceProperties properties = segmentProperties();
+        properties.getCache().setMaximumKeys(2);
+        SequenceGeneratorService service = startNode(properties);
+
+        Map<String, Set<Long>> issued = new HashMap<>();
+        for (int round = 0; round < 20; round++) {
+            for (int key = 0; key < 10; key++) {
+                String keyName = "EVICT-" + key;
+                long value = service.generateNext(keyName);
+                assertTrue(issued.computeIfAbsent(keyName, k -> new HashSet<>()).add(value),
+                        "duplicate " + value + " for " + keyName);
+            }
+        }
+        await(() -> service.getKeyCacheStats().returnedRanges() > 0);
+    }
+
+    @Test
+    void unusedRangesReturnedOnShutdownAreReusedOnce() throws Exception {
+        SequenceGeneratorService first = startNode(segmentProperties());
+        SequenceGeneratorService second = startNode(segmentProperties());
+        Set<Long> issued = new HashSet<>(generate(first, 10));
+        issued.addAll(generate(second, 10));
+
+        // first: node khác đã lease sau nên [11..100] vào free list; second: đoạn cuối, hạ store về 110
+        stop(first);
+        stop(second);
+
+        SequenceGeneratorService third = startNode(segmentProperties());
+        List<Long> reused = generate(third, 200);
+        assertEquals(11L, reused.get(0));
+        for (long value : reused) {
+            assertTrue(issued.add(value), "duplicate " + value);
+        }
+        // [11..100] từ free list rồi lease tiếp từ 111: không còn khoảng trống nào
+        assertEquals(220, issued.size());
+        assertEquals(220, issued.stream().mapToLong(Long::longValue).max().orElse(0));
+    }
+
+    @Test
+    void failedMultiReturnsReservedValues() throws Exception {
+        SequenceProperties properties = segmentProperties();
+        SequenceProperties.KeyConfig cached = new SequenceProperties.KeyConfig();
+        cached.setMode(SequenceProperties.Mode.CACHED);
+        properties.getKeys().put("BROKEN", cached);
+
+        ZooKeeperSequenceStore store = new ZooKeeperSequenceStore(curatorFramework, "/sequences", 10) {
+            @Override
+            public long currentValue(String keyName) throws Exception {
+                if (keyName.equals("BROKEN")) {
+                    throw new IllegalStateException("read failed");
+                }
+                return super.currentValue(keyName);
+            }
+        };
+        SequenceGeneratorService service = startNode(properties, store);
+
+        assertThrows(RuntimeException.class, () -> service.generateMulti(List.of("ORDER", "INVOICE", "BROKEN")));
+
+        // Số đã giữ của các key segment được đưa vào free list, không bị cấp ở lần sau
+        assertEquals(new IdRange(1, 1), store.takeFreeRange("ORDER"));
+        assertEquals(new IdRange(1, 1), store.takeFreeRange("INVOICE"));
+        assertNotEquals(1L, service.generateNext("ORDER"));
+        assertEquals(Map.of("ORDER", 3L, "INVOICE", 2L),
+                service.generateMulti(List.of("ORDER", "INVOICE")));
+    }
+
+    @Test
+    void resetFailsWhenStoreWriteFails() throws Exception {
+        ZooKeeperSequenceStore store = new ZooKeeperSequenceStore(curatorFramework, "/sequences", 10) {
+            @Override
+            public void setValue(String keyName, long value) {
+                throw new IllegalStateException("connection loss");
+            }
+        };
+        SequenceGeneratorService service = startNode(new SequenceProperties(), store);
+        generate(service, 5);
+
+        assertThrows(StoreUnavailableException.class, () -> service.resetSequence(KEY, 1000));
+        assertTrue(store.currentValue(KEY) < 1000);
+    }
+
+    @Test
+    void strictKeysAreExportedAndImported() throws Exception {
+        SequenceProperties properties = new SequenceProperties();
+        SequenceProperties.KeyConfig strict = new SequenceProperties.KeyConfig();
+        strict.setMode(SequenceProperties.Mode.STRICT);
+        properties.getKeys().put("DOC", strict);
+        SequenceGeneratorService service = startNode(properties);
+        for (int i = 0; i < 5; i++) {
+            service.generateNext("DOC");
+        }
+        generate(service, 3);
+
+        assertTrue(service.getStoredKeysAsync(null).get().contains("DOC"));
+        assertEquals(5L, service.getStoredValueAsync("DOC").get());
+
+        // Restore lên ensemble trống: tiếp tục sau high, không quay về 1
+        service.deleteSequence("DOC");
+        assertEquals(1, service.importValues(Map.of("DOC", 5L)));
+        assertEquals(0, service.importValues(Map.of("DOC", 3L)));
+        assertEquals(6L, service.generateNext("DOC"));
+    }
+
+    @Test
+    void cachedCounterResumesFromJournalAheadOfStore(@TempDir Path dir) throws Exception {
+        SequenceProperties properties = new SequenceProperties();
+        properties.getZookeeper().setSyncInterval(1000);
+        properties.getZookeeper().setSyncThreshold(1000);
+        // Node chết đột ngột: không ghi counter lên store khi dừng
+        properties.getSegment().setReturnOnShutdown(false);
+        properties.getJournal().setEnabled(true);
+        properties.getJournal().setPath(dir.resolve("journal.dat").toString());
+        properties.getJournal().setCheckpointInterval(10);
+
+        SequenceGeneratorService first = startNode(properties);
+        List<Long> issued = generate(first, 25);
+        stop(first);
+        ZooKeeperSequenceStore store = new ZooKeeperSequenceStore(curatorFramework, "/sequences", 10);
+        store.start();
+        assertTrue(store.currentValue(KEY) < 25);
+
+        // Restart: store chậm hơn journal, tiếp tục sau checkpoint và nâng store trước khi cấp
+        SequenceGeneratorService second = startNode(properties);
+        long next = second.generateNext(KEY);
+        assertTrue(next > issued.get(issued.size() - 1), "reissued " + next);
+        assertTrue(store.currentValue(KEY) >= next - 1);
+    }
+
+    @Test
+    void formattedKeysMustNotUseCachedMode() {
+        SequenceProperties properties = new SequenceProperties();
+        SequenceProperties.KeyConfig invoice = new SequenceProperties.KeyConfig();
+        invoice.setFormat("INV-{yyyy}-{seq:6}");
+        properties.getKeys().put("INVOICE", invoice);
+
+        assertThrows(RuntimeException.class, () -> startNode(properties));
+    }
+
+    private SequenceProperties segmentProperties() {
+        SequenceProperties properties = new SequenceProperties();
+        properties.setMode(SequenceProperties.Mode.SEGMENT);
+        properties.getSegment().setStep(100);
+        properties.getSegment().setAdaptive(false);
+        // Không lease trước segment dự phòng, đoạn đã lease của mỗi node dễ đoán
+        properties.getSegment().setPrefetchThreshold(1.0);
+        return properties;
+    }
+
+    private SequenceGeneratorService startNode(SequenceProperties properties) throws Exception {
+        return startNode(properties, new ZooKeeperSequenceStore(curatorFramework,
+                properties.getZookeeper().getBasePath(), properties.getSegment().getMaxLeaseRetries()));
+    }
+
+    private SequenceGeneratorService startNode(SequenceProperties properties, ZooKeeperSequenceStore store)
+            throws Exception {
+        store.start();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("curatorFramework", curatorFramework);
+        SequenceGeneratorService service = new SequenceGeneratorService(properties, store,
+                beanFactory.getBeanProvider(CuratorFramework.class), beanFactory.getBeanProvider(MeterRegistry.class));
+        service.init();
+        services.add(service);
+        return service;
+    }
+
+    private void stop(SequenceGeneratorService service) {
+        services.remove(service);
+        service.destroy();
+    }
+
+    private static List<Long> generate(SequenceGeneratorService service, int count) {
+        List<Long> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(service.generateNext(KEY));
+        }
+        return values;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 10s");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.commonserviceofficial.sequence.snowflake;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long EPOCH = 1_704_067_200_000L;
+
+    @Test
+    void idsAreIncreasingAndCarryWorkerAndTimestamp() {
+        AtomicLong clock = new AtomicLong(EPOCH + 1000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 5, clock::get);
+        generator.setWorkerId(42);
+
+        long first = generator.nextId();
+        long second = generator.nextId();
+        clock.incrementAndGet();
+        long third = generator.nextId();
+
+        assertTrue(first < second && second < third);
+        assertEquals(42, SnowflakeIdGenerator.workerIdOf(third));
+        assertEquals(EPOCH + 1001, generator.timestampOf(third));
+    }
+
+    @Test
+    void smallClockRollbackKeepsIdsUnique() {
+        AtomicLong clock = new AtomicLong(EPOCH + 1000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 5, clock::get);
+        generator.setWorkerId(1);
+
+        long before = generator.nextId();
+        clock.addAndGet(-3);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void largeClockRollbackIsRejected() {
+        AtomicLong clock = new AtomicLong(EPOCH + 1000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 5, clock::get);
+        generator.setWorkerId(1);
+
+        generator.nextId();
+        clock.addAndGet(-100);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void generatorWithoutWorkerIdRefusesToIssue() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(EPOCH, 5);
+
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+}
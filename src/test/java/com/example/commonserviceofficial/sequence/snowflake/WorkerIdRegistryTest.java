@@ -0,0 +1,67 @@
+package com.example.commonserviceofficial.sequence.snowflake;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.test.TestingServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WorkerIdRegistryTest {
+
+    private TestingServer server;
+    private CuratorFramework curatorFramework;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new TestingServer(true);
+        curatorFramework = CuratorFrameworkFactory.builder()
+                .connectString(server.getConnectString())
+                .sessionTimeoutMs(60_000)
+                .connectionTimeoutMs(2_000)
+                .retryPolicy(new ExponentialBackoffRetry(100, 3))
+                .build();
+        curatorFramework.start();
+        curatorFramework.blockUntilConnected(30, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        curatorFramework.close();
+        server.close();
+    }
+
+    @Test
+    void pausesWhileSuspendedAndResumesWithSameSession() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(0, 5);
+        WorkerIdRegistry registry = new WorkerIdRegistry(curatorFramework, "/sequences/_workers", generator);
+        registry.start();
+        int workerId = generator.getWorkerId();
+
+        // Mất kết nối: ngừng cấp ngay, không chờ LOST
+        server.stop();
+        await(() -> !generator.isReady());
+
+        // Kết nối lại trước khi session hết hạn: node ephemeral vẫn của session này, giữ worker ID
+        server.restart();
+        await(generator::isReady);
+        assertEquals(workerId, generator.getWorkerId());
+        registry.close();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 30s");
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileSequenceStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void leaseAllAdvancesEveryKeyAndSurvivesRestart() throws Exception {
+        FileSequenceStore store = new FileSequenceStore(directory.resolve("sequences.properties"));
+        store.start();
+        store.lease("ORDER_ID", 100);
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("ORDER_ID", 50L);
+        counts.put("INVOICE_NO", 10L);
+        Map<String, IdRange> ranges = store.leaseAll(counts);
+
+        assertEquals(List.of("ORDER_ID", "INVOICE_NO"), List.copyOf(ranges.keySet()));
+        assertEquals(List.of(101L, 150L), List.of(ranges.get("ORDER_ID").start(), ranges.get("ORDER_ID").end()));
+        assertEquals(List.of(1L, 10L), List.of(ranges.get("INVOICE_NO").start(), ranges.get("INVOICE_NO").end()));
+        store.close();
+
+        FileSequenceStore reopened = new FileSequenceStore(directory.resolve("sequences.properties"));
+        reopened.start();
+        assertEquals(150, reopened.currentValue("ORDER_ID"));
+        assertEquals(10, reopened.currentValue("INVOICE_NO"));
+        reopened.close();
+    }
+
+    @Test
+    void raiseAllNeverLowersValues() throws Exception {
+        FileSequenceStore store = new FileSequenceStore(directory.resolve("sequences.properties"));
+        store.start();
+        store.lease("ORDER_ID", 500);
+        store.lease("INVOICE_NO", 10);
+
+        Map<String, Long> values = new LinkedHashMap<>();
+        values.put("ORDER_ID", 200L);
+        values.put("INVOICE_NO", 40L);
+        values.put("PAYMENT_REF", 7L);
+
+        assertEquals(Set.of("INVOICE_NO", "PAYMENT_REF"), store.raiseAll(values));
+        assertEquals(500, store.currentValue("ORDER_ID"));
+        assertEquals(40, store.currentValue("INVOICE_NO"));
+        assertEquals(7, store.currentValue("PAYMENT_REF"));
+        store.close();
+    }
+
+    @Test
+    void returnRangeRejectsRangeLeasedBeforeReset() throws Exception {
+        FileSequenceStore store = new FileSequenceStore(directory.resolve("sequences.properties"));
+        store.start();
+        IdRange stale = store.lease("ORDER_ID", 100);
+
+        // Reset rồi lease lại tới đúng giá trị cũ: giá trị khớp nhưng đoạn cũ không còn là của node
+        store.setValue("ORDER_ID", 0);
+        IdRange fresh = store.lease("ORDER_ID", 100);
+
+        assertFalse(store.returnRange("ORDER_ID", stale));
+        assertEquals(100, store.currentValue("ORDER_ID"));
+        assertTrue(store.returnRange("ORDER_ID", fresh));
+        assertEquals(0, store.currentValue("ORDER_ID"));
+        store.close();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FreeRangesTest {
+
+    @Test
+    void keepsRangesSortedAndMergesAdjacent() {
+        List<IdRange> ranges = FreeRanges.parse("");
+        assertTrue(FreeRanges.add(ranges, new IdRange(2001, 2500)));
+        assertTrue(FreeRanges.add(ranges, new IdRange(101, 200)));
+        assertTrue(FreeRanges.add(ranges, new IdRange(501, 1000)));
+        assertTrue(FreeRanges.add(ranges, new IdRange(1001, 2000)));
+
+        assertEquals("101-200,501-2500", FreeRanges.format(ranges));
+        assertEquals(ranges, FreeRanges.parse(FreeRanges.format(ranges)));
+    }
+
+    @Test
+    void rejectsOverlappingRange() {
+        List<IdRange> ranges = FreeRanges.parse("101-200,501-1000");
+
+        assertFalse(FreeRanges.add(ranges, new IdRange(150, 300)));
+        assertFalse(FreeRanges.add(ranges, new IdRange(400, 501)));
+    }
+}
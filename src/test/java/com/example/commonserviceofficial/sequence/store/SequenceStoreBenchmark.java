@@ -0,0 +1,122 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import com.example.commonserviceofficial.sequence.segment.IdRange;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark chung cho mọi {@link SequenceStore}: nhiều thread cùng lease một key,
+ * đo throughput, latency trung bình và kiểm tra các đoạn đã lease không chồng lên nhau.
+ *
+ * <pre>
+ * java ... SequenceStoreBenchmark file
+ * java ... SequenceStoreBenchmark zookeeper localhost:2181
+ * java ... SequenceStoreBenchmark redis localhost 6379
+ * </pre>
+ *
+ * Tham số qua system property: threads (8), leases (1000 mỗi thread), step (1000).
+ */
+public class SequenceStoreBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String type = args.length > 0 ? args[0] : "file";
+        int threads = Integer.getInteger("threads", 8);
+        int leases = Integer.getInteger("leases", 1000);
+        long step = Long.getLong("step", 1000);
+
+        switch (type) {
+            case "zookeeper" -> {
+                try (CuratorFramework curatorFramework = CuratorFrameworkFactory.newClient(
+                        args.length > 1 ? args[1] : "localhost:2181", new ExponentialBackoffRetry(1000, 3))) {
+                    curatorFramework.start();
+                    curatorFramework.blockUntilConnected();
+                    ZooKeeperSequenceStore store = new ZooKeeperSequenceStore(curatorFramework, "/sequence-benchmark", 100);
+                    store.start();
+                    run(store, threads, leases, step);
+                }
+            }
+            case "redis" -> {
+                LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(
+                        new RedisStandaloneConfiguration(args.length > 1 ? args[1] : "localhost",
+                                args.length > 2 ? Integer.parseInt(args[2]) : 6379));
+                connectionFactory.afterPropertiesSet();
+                try {
+                    run(new RedisSequenceStore(new StringRedisTemplate(connectionFactory), "sequence-benchmark:"),
+                            threads, leases, step);
+                } finally {
+                    connectionFactory.destroy();
+                }
+            }
+            default -> {
+                FileSequenceStore store = new FileSequenceStore(
+                        Files.createTempDirectory("sequence-benchmark").resolve("sequences.properties"));
+                store.start();
+                try {
+                    run(store, threads, leases, step);
+                } finally {
+                    store.close();
+                }
+            }
+        }
+    }
+
+    static void run(SequenceStore store, int threads, int leases, long step) throws Exception {
+        String keyName = "benchmark-" + System.currentTimeMillis();
+        ConcurrentHashMap<Long, IdRange> ranges = new ConcurrentHashMap<>();
+        AtomicLong totalNanos = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < leases; i++) {
+                    long begin = System.nanoTime();
+                    IdRange range = store.lease(keyName, step);
+                    totalNanos.addAndGet(System.nanoTime() - begin);
+                    if (ranges.put(range.start(), range) != null) {
+                        throw new IllegalStateException("Duplicate range " + range);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(10, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        long elapsed = System.nanoTime() - begin;
+
+        long total = (long) threads * leases;
+        long expectedEnd = total * step;
+        if (ranges.size() != total || store.currentValue(keyName) != expectedEnd) {
+            throw new IllegalStateException("Lost or overlapping leases: " + ranges.size() + " ranges, end="
+                    + store.currentValue(keyName) + ", expected " + expectedEnd);
+        }
+        store.delete(keyName);
+
+        System.out.printf("store=%s threads=%d leases=%d step=%d%n", store.name(), threads, total, step);
+        System.out.printf("  throughput: %.0f leases/s (%.0f ids/s)%n",
+                total * 1e9 / elapsed, total * step * 1e9 / elapsed);
+        System.out.printf("  avg latency: %.1f us%n", totalNanos.get() / 1e3 / total);
+    }
+}
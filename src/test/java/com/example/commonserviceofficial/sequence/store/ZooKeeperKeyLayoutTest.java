@@ -0,0 +1,51 @@
+package com.example.commonserviceofficial.sequence.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZooKeeperKeyLayoutTest {
+
+    @Test
+    void hashedPathsRoundTripToKeyName() {
+        ZooKeeperKeyLayout layout = new ZooKeeperKeyLayout("/sequences", 256);
+
+        String path = layout.pathOf("tenant-42:ORDER");
+        assertTrue(path.startsWith("/sequences/_buckets/"));
+        assertEquals(path, layout.bucketPathOf("tenant-42:ORDER") + "/tenant-42:ORDER");
+        assertEquals("tenant-42:ORDER", layout.keyNameOf(path));
+        assertEquals("tenant-42:ORDER", layout.keyNameOf(layout.flatPathOf("tenant-42:ORDER")));
+
+        assertNull(layout.keyNameOf("/sequences/_buckets"));
+        assertNull(layout.keyNameOf("/sequences/_buckets/0a"));
+        assertNull(layout.keyNameOf("/sequences/_epochs/ORDER"));
+        assertNull(layout.keyNameOf("/sequences/_strict"));
+    }
+
+    @Test
+    void flatLayoutKeepsDirectChildren() {
+        ZooKeeperKeyLayout layout = new ZooKeeperKeyLayout("/sequences", 0);
+
+        assertFalse(layout.isHashed());
+        assertEquals("/sequences/ORDER", layout.pathOf("ORDER"));
+    }
+
+    @Test
+    void spreadsSimilarKeysAcrossBuckets() {
+        ZooKeeperKeyLayout layout = new ZooKeeperKeyLayout("/sequences", 64);
+        Map<String, Integer> perBucket = new HashMap<>();
+        for (int i = 0; i < 64_000; i++) {
+            perBucket.merge(layout.bucketPathOf("tenant-" + i + ":ORDER"), 1, Integer::sum);
+        }
+
+        assertEquals(64, perBucket.size());
+        // Trung bình 1000 key mỗi bucket
+        perBucket.values().forEach(count -> assertTrue(count > 700 && count < 1300, "bucket size " + count));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.commonserviceofficial.sequence.strict;
+
+import com.example.commonserviceofficial.sequence.metrics.SequenceMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.test.TestingServer;
+import org.apache.zookeeper.KeeperException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StrictSequencerTest {
+
+    private TestingServer server;
+    private CuratorFramework curatorFramework;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new TestingServer(true);
+        curatorFramework = CuratorFrameworkFactory.newClient(server.getConnectString(),
+                new ExponentialBackoffRetry(100, 3));
+        curatorFramework.start();
+        curatorFramework.blockUntilConnected(30, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        curatorFramework.close();
+        server.close();
+    }
+
+    @Test
+    void lostWriteResponseIsNotAppliedTwice() throws Exception {
+        AtomicInteger lostResponses = new AtomicInteger();
+        // Lần ghi (create lẫn setData) thành công trên ZooKeeper nhưng client nhận ConnectionLoss
+        StrictSequencer sequencer = new StrictSequencer(curatorFramework, "/sequences/_strict", 300_000, 100, 5,
+                Runnable::run, new SequenceMetrics(new SimpleMeterRegistry(), "zookeeper", 10)) {
+            @Override
+            boolean writeState(String path, Integer version, byte[] data) throws Exception {
+                boolean written = super.writeState(path, version, data);
+                if (written) {
+                    lostResponses.incrementAndGet();
+                    throw new KeeperException.ConnectionLossException();
+                }
+                return written;
+            }
+        };
+
+        assertEquals(1L, sequencer.next("DOC").get());
+        assertEquals(2L, sequencer.next("DOC").get());
+        assertEquals(3L, sequencer.reserve("DOC").get());
+
+        assertEquals(3, lostResponses.get());
+        assertEquals(3L, sequencer.current("DOC"));
+    }
+}
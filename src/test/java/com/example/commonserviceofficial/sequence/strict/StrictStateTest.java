@@ -0,0 +1,67 @@
+package com.example.commonserviceofficial.sequence.strict;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StrictStateTest {
+
+    @Test
+    void releasedValuesAreReissuedBeforeNewOnes() {
+        StrictState state = new StrictState();
+        long first = state.reserve(Long.MAX_VALUE, 100);
+        long second = state.reserve(Long.MAX_VALUE, 100);
+        long third = state.reserve(Long.MAX_VALUE, 100);
+
+        state.confirm(first);
+        state.release(second);
+        state.confirm(third);
+
+        assertEquals(2, state.reserve(Long.MAX_VALUE, 100));
+        assertEquals(4, state.reserve(Long.MAX_VALUE, 100));
+    }
+
+    @Test
+    void releasingTheTopValueLowersHigh() {
+        StrictState state = new StrictState();
+        state.confirm(state.reserve(Long.MAX_VALUE, 100));
+        long second = state.reserve(Long.MAX_VALUE, 100);
+        long third = state.reserve(Long.MAX_VALUE, 100);
+
+        state.release(second);
+        state.release(third);
+
+        assertEquals(1, state.getHigh());
+        assertTrue(state.getReleased().isEmpty());
+    }
+
+    @Test
+    void expiredReservationCannotBeConfirmed() {
+        StrictState state = new StrictState();
+        long value = state.reserve(1000, 100);
+        state.confirm(state.reserve(5000, 100));
+
+        state.expire(2000);
+
+        assertThrows(IllegalArgumentException.class, () -> state.confirm(value));
+        assertEquals(value, state.reserve(9000, 100));
+    }
+
+    @Test
+    void stateSurvivesJsonRoundTrip() throws Exception {
+        StrictState state = new StrictState(10);
+        long value = state.reserve(7000, 100);
+        state.reserve(8000, 100);
+        state.release(value);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        StrictState copy = objectMapper.readValue(objectMapper.writeValueAsBytes(state), StrictState.class);
+
+        assertEquals(12, copy.getHigh());
+        assertEquals(state.getReleased(), copy.getReleased());
+        assertEquals(8000L, copy.getPending().get(12L));
+    }
+}
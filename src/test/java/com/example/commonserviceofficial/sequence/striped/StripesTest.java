@@ -0,0 +1,57 @@
+package com.example.commonserviceofficial.sequence.striped;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripesTest {
+
+    @Test
+    void stripesIssueDisjointResidueClasses() {
+        Stripes stripes = new Stripes("CORRELATION_ID", 8, 0);
+        Set<Long> ids = new HashSet<>();
+        for (int stripe = 0; stripe < 8; stripe++) {
+            for (long local = 1; local <= 1000; local++) {
+                assertTrue(ids.add(stripes.idOf(stripe, local)));
+            }
+        }
+
+        // 8 stripe x 1000 số phủ kín 1..8000
+        assertEquals(8000, ids.size());
+        assertEquals(1, ids.stream().mapToLong(Long::longValue).min().orElseThrow());
+        assertEquals(8000, ids.stream().mapToLong(Long::longValue).max().orElseThrow());
+    }
+
+    @Test
+    void resetFloorKeepsEveryStripeAboveValue() {
+        Stripes stripes = new Stripes("CORRELATION_ID", 8, 0);
+        for (long value : new long[]{0, 1, 7, 8, 9, 12_345}) {
+            long floor = stripes.localFloor(value);
+            for (int stripe = 0; stripe < 8; stripe++) {
+                assertTrue(stripes.idOf(stripe, floor + 1) > value);
+            }
+        }
+    }
+
+    @Test
+    void rotateMovesAwayFromFailedStripeOnce() {
+        Stripes stripes = new Stripes("CORRELATION_ID", 4, 3);
+
+        stripes.rotate(3);
+        assertEquals(0, stripes.preferred());
+        stripes.rotate(3);
+        assertEquals(0, stripes.preferred());
+    }
+
+    @Test
+    void baseKeyOfStripeKey() {
+        assertEquals("CORRELATION_ID", Stripes.baseKeyOf(new Stripes("CORRELATION_ID", 4).stripeKey(2)));
+        assertEquals("ORDER", Stripes.baseKeyOf("ORDER"));
+        assertEquals("ORDER#A", Stripes.baseKeyOf("ORDER#A"));
+        assertEquals("#1", Stripes.baseKeyOf("#1"));
+    }
+}